@@ -1,14 +1,35 @@
 package ai.uniauth.config;
 
+import ai.uniauth.security.BcryptStrengthCalibrator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.Map;
+
 @Configuration
 public class ServiceConfig {
+
+    // bcrypt below cost 10 is no longer considered adequate, whatever the budget
+    private static final int MIN_BCRYPT_STRENGTH = 10;
+
+    /**
+     * New hashes are written as {bcrypt} at the configured or calibrated strength. Legacy
+     * hashes without an id prefix still verify, and report that they need upgrading.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${uni.auth.hashing.bcrypt-strength:0}") int strength,
+                                           @Value("${uni.auth.hashing.target-millis:50}") long targetMillis,
+                                           @Value("${uni.auth.hashing.max-bcrypt-strength:14}") int maxStrength) {
+        int effectiveStrength = strength > 0
+                ? strength
+                : BcryptStrengthCalibrator.calibrate(targetMillis, MIN_BCRYPT_STRENGTH, maxStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder("bcrypt",
+                Map.of("bcrypt", new BCryptPasswordEncoder(effectiveStrength)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
 }
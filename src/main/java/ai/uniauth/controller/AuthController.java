@@ -0,0 +1,189 @@
+package ai.uniauth.controller;
+
+import ai.uniauth.exception.ApiResponse;
+import ai.uniauth.models.User;
+import ai.uniauth.security.JwtTokenProvider;
+import ai.uniauth.security.LoginFailureTracker;
+import ai.uniauth.security.OneTimePasswordVerifier;
+import ai.uniauth.security.PasswordHashingExecutor;
+import ai.uniauth.security.RecentRefreshIndex;
+import ai.uniauth.security.TokenRevocationList;
+import ai.uniauth.service.SessionService;
+import ai.uniauth.service.UserService;
+import ai.uniauth.service.dto.request.LoginRequest;
+import ai.uniauth.service.dto.request.RefreshTokenRequest;
+import ai.uniauth.service.dto.response.SessionTokens;
+import ai.uniauth.service.session.ActiveSession;
+import ai.uniauth.service.session.SessionReaper;
+import ai.uniauth.service.session.SessionStoreSync;
+import ai.uniauth.service.system.ApiKeyIndex;
+import ai.uniauth.service.system.SystemIpRules;
+import ai.uniauth.service.system.SystemRateLimiter;
+import ai.uniauth.service.user.LoginAttemptWriter;
+import ai.uniauth.service.user.PasswordResetTokens;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+@RestController
+@RequestMapping("/api/auth")
+@RequiredArgsConstructor
+public class AuthController {
+
+    private final UserService userService;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final LoginAttemptWriter loginAttemptWriter;
+    private final LoginFailureTracker loginFailureTracker;
+    private final OneTimePasswordVerifier oneTimePasswordVerifier;
+    private final PasswordResetTokens passwordResetTokens;
+    private final ApiKeyIndex apiKeyIndex;
+    private final SystemRateLimiter systemRateLimiter;
+    private final SystemIpRules systemIpRules;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationList tokenRevocationList;
+    private final SessionService sessionService;
+    private final RecentRefreshIndex recentRefreshIndex;
+    private final SessionStoreSync sessionStoreSync;
+    private final SessionReaper sessionReaper;
+
+    @PostMapping("/login")
+    public ApiResponse login(@Valid @RequestBody LoginRequest request, HttpServletRequest httpRequest) {
+        User user = userService.authenticate(request.getUsernameOrEmail(), request.getPassword(), request.getMfaCode(),
+                httpRequest.getRemoteAddr(), httpRequest.getHeader("User-Agent"));
+        SessionTokens tokens = sessionService.openSession(user,
+                httpRequest.getRemoteAddr(), httpRequest.getHeader("User-Agent"));
+        return ApiResponse.builder()
+                .success(true)
+                .code("OK")
+                .timestamp(Instant.now())
+                .data(Map.of(
+                        "userId", user.getId(),
+                        "username", user.getUsername(),
+                        "mustChangePassword", Boolean.TRUE.equals(user.getMustChangePassword()),
+                        "tokens", tokens,
+                        "tokenType", "Bearer"
+                ))
+                .build();
+    }
+
+    @PostMapping("/refresh")
+    public ApiResponse refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        return ApiResponse.builder()
+                .success(true)
+                .code("OK")
+                .timestamp(Instant.now())
+                .data(sessionService.refreshSession(request.getRefreshToken()))
+                .build();
+    }
+
+    @PostMapping("/logout")
+    public ApiResponse logout(@AuthenticationPrincipal JwtTokenProvider.VerifiedToken token) {
+        sessionService.closeSession(requireToken(token), "LOGOUT");
+        return ApiResponse.builder()
+                .success(true)
+                .code("OK")
+                .timestamp(Instant.now())
+                .build();
+    }
+
+    @PostMapping("/logout/all")
+    public ApiResponse logoutAll(@AuthenticationPrincipal JwtTokenProvider.VerifiedToken token) {
+        int closed = sessionService.closeAllSessions(requireToken(token).userId(), "LOGOUT_ALL");
+        return ApiResponse.builder()
+                .success(true)
+                .code("OK")
+                .timestamp(Instant.now())
+                .data(Map.of("closedSessions", closed))
+                .build();
+    }
+
+    @GetMapping("/sessions")
+    public List<ActiveSession> getSessions(@AuthenticationPrincipal JwtTokenProvider.VerifiedToken token) {
+        return sessionService.getActiveSessions(requireToken(token).userId());
+    }
+
+    @GetMapping("/hashing/stats")
+    public Map<String, Long> getHashingStats() {
+        return passwordHashingExecutor.getStats();
+    }
+
+    @GetMapping("/login-attempts/stats")
+    public Map<String, Long> getLoginAttemptStats() {
+        return loginAttemptWriter.getStats();
+    }
+
+    @GetMapping("/throttle/stats")
+    public Map<String, Long> getThrottleStats() {
+        return loginFailureTracker.getStats();
+    }
+
+    @GetMapping("/mfa/stats")
+    public Map<String, Long> getMfaStats() {
+        return oneTimePasswordVerifier.getStats();
+    }
+
+    @GetMapping("/password-resets/stats")
+    public Map<String, Long> getPasswordResetStats() {
+        return passwordResetTokens.getStats();
+    }
+
+    @GetMapping("/api-keys/stats")
+    public Map<String, Long> getApiKeyStats() {
+        return apiKeyIndex.getStats();
+    }
+
+    @GetMapping("/rate-limits/stats")
+    public Map<String, Long> getRateLimitStats() {
+        return systemRateLimiter.getStats();
+    }
+
+    @GetMapping("/rate-limits/rejections")
+    public Map<UUID, Long> getRateLimitRejections() {
+        return systemRateLimiter.getRejectionsBySystem();
+    }
+
+    @GetMapping("/ip-rules/stats")
+    public Map<String, Long> getIpRuleStats() {
+        return systemIpRules.getStats();
+    }
+
+    @GetMapping("/tokens/stats")
+    public Map<String, Long> getTokenStats() {
+        return jwtTokenProvider.getStats();
+    }
+
+    @GetMapping("/revocations/stats")
+    public Map<String, Long> getRevocationStats() {
+        return tokenRevocationList.getStats();
+    }
+
+    @GetMapping("/refresh/stats")
+    public Map<String, Long> getRefreshStats() {
+        return recentRefreshIndex.getStats();
+    }
+
+    @GetMapping("/sessions/stats")
+    public Map<String, Long> getSessionStats() {
+        return sessionStoreSync.getStats();
+    }
+
+    @GetMapping("/sessions/reaper/stats")
+    public Map<String, Long> getSessionReaperStats() {
+        return sessionReaper.getStats();
+    }
+
+    private static JwtTokenProvider.VerifiedToken requireToken(JwtTokenProvider.VerifiedToken token) {
+        if (token == null) {
+            throw new InsufficientAuthenticationException("Authentication required");
+        }
+        return token;
+    }
+}
@@ -0,0 +1,57 @@
+package ai.uniauth.controller;
+
+import ai.uniauth.exception.ApiResponse;
+import ai.uniauth.service.authz.PermissionDecisionMatrix;
+import ai.uniauth.service.dto.request.PermissionDecisionRequest;
+import ai.uniauth.service.dto.response.PermissionDecisionResponse;
+import ai.uniauth.service.impl.PermissionServiceImpl;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.Instant;
+import java.util.Base64;
+
+@RestController
+@RequestMapping("/api/permissions")
+@RequiredArgsConstructor
+public class PermissionController {
+
+    private final PermissionServiceImpl permissionService;
+
+    @PostMapping("/decisions")
+    public PermissionDecisionResponse checkPermissions(@Valid @RequestBody PermissionDecisionRequest request) {
+        PermissionDecisionMatrix matrix = permissionService.checkPermissions(
+                request.getUserIds(), request.getPermissionCodes(), request.getSystemCode());
+        return PermissionDecisionResponse.builder()
+                .userIds(matrix.getUserIds())
+                .permissionCodes(matrix.getPermissionCodes())
+                .decisions(Base64.getEncoder().encodeToString(matrix.toByteArray()))
+                .grantedCount(matrix.countGranted())
+                .build();
+    }
+
+    @PostMapping("/partitions/{systemCode}/warm")
+    public ApiResponse warmSystemPartition(@PathVariable String systemCode) {
+        int loaded = permissionService.warmSystemPartition(systemCode);
+        return ApiResponse.builder()
+                .success(true)
+                .code("OK")
+                .message("Loaded " + loaded + " users")
+                .timestamp(Instant.now())
+                .data(loaded)
+                .build();
+    }
+
+    @DeleteMapping("/partitions/{systemCode}")
+    public ApiResponse evictSystemPartition(@PathVariable String systemCode) {
+        long evicted = permissionService.evictSystemPartition(systemCode);
+        return ApiResponse.builder()
+                .success(true)
+                .code("OK")
+                .message("Evicted " + evicted + " users")
+                .timestamp(Instant.now())
+                .data(evicted)
+                .build();
+    }
+}
@@ -0,0 +1,29 @@
+package ai.uniauth.controller;
+
+import ai.uniauth.exception.InvalidRequestException;
+import ai.uniauth.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/users")
+@RequiredArgsConstructor
+public class UserController {
+
+    private final UserService userService;
+
+    @GetMapping("/availability")
+    public Map<String, Boolean> checkAvailability(@RequestParam(required = false) String username,
+                                                  @RequestParam(required = false) String email,
+                                                  @RequestParam(required = false) String phoneNumber) {
+        if (username == null && email == null && phoneNumber == null) {
+            throw new InvalidRequestException("At least one of username, email or phoneNumber is required");
+        }
+        return userService.checkAvailability(username, email, phoneNumber);
+    }
+}
@@ -0,0 +1,13 @@
+package ai.uniauth.exception;
+
+/**
+ * Thrown when a request is well-formed but its content cannot be served, answered with 400.
+ */
+public class InvalidRequestException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public InvalidRequestException(String message) {
+        super(message);
+    }
+}
@@ -9,6 +9,7 @@ import java.time.LocalDateTime;
 @Table(name = "api_keys",
         indexes = {
                 @Index(name = "idx_api_keys_system", columnList = "system_id"),
+                @Index(name = "idx_api_keys_prefix", columnList = "key_prefix", unique = true),
                 @Index(name = "idx_api_keys_active", columnList = "is_active"),
                 @Index(name = "idx_api_keys_expires", columnList = "expires_at")
         })
@@ -17,11 +18,19 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 @EqualsAndHashCode(callSuper = true, exclude = "uiSystem")
-@ToString(exclude = {"apiKeyHash", "clientSecret"})
+@ToString(exclude = {"apiKeyHash", "clientSecret", "plainKey"})
 public class ApiKey extends BaseEntity {
     @Column(name = "api_key_hash", nullable = false, length = 255, unique = true)
     private String apiKeyHash;
 
+    // Public part of the key, used to find the single candidate hash
+    @Column(name = "key_prefix", length = 16)
+    private String keyPrefix;
+
+    // Only set on the instance returned when a key is created; never persisted
+    @Transient
+    private String plainKey;
+
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "system_id", nullable = false, columnDefinition = "BINARY(16)")
     private UniSystem uniSystem;
@@ -8,7 +8,6 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "password_resets",
         indexes = {
-                @Index(name = "idx_password_resets_token", columnList = "token"),
                 @Index(name = "idx_password_resets_user", columnList = "user_id"),
                 @Index(name = "idx_password_resets_expires", columnList = "expires_at")
         })
@@ -19,9 +18,14 @@ import java.time.LocalDateTime;
 @EqualsAndHashCode(callSuper = true, exclude = "user")
 public class PasswordReset extends BaseNoIdEntity {
 
+    // Hex SHA-256 of the reset token; raw tokens are not stored. Tables created with the raw
+    // token as primary key are migrated in place, keeping outstanding links valid:
+    //   UPDATE password_resets SET token = SHA2(token, 256);
+    //   ALTER TABLE password_resets DROP INDEX idx_password_resets_token,
+    //       CHANGE token token_hash CHAR(64) NOT NULL;
     @Id
-    @Column(name = "token", length = 255)
-    private String token;
+    @Column(name = "token_hash", columnDefinition = "CHAR(64)")
+    private String tokenHash;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
     @JoinColumn(name = "user_id", nullable = false, columnDefinition = "BINARY(16)")
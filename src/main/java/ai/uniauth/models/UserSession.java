@@ -11,16 +11,17 @@ import java.time.LocalDateTime;
 @Table(name = "user_sessions",
         indexes = {
                 @Index(name = "idx_sessions_user", columnList = "user_id"),
-                @Index(name = "idx_sessions_refresh_token", columnList = "refresh_token"),
+                @Index(name = "idx_sessions_previous_refresh_token_hash", columnList = "previous_refresh_token_hash"),
                 @Index(name = "idx_sessions_is_active", columnList = "is_active"),
-                @Index(name = "idx_sessions_expires", columnList = "access_token_expires")
+                @Index(name = "idx_sessions_expires", columnList = "access_token_expires"),
+                @Index(name = "idx_sessions_logout_at", columnList = "logout_at")
         })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @EqualsAndHashCode(callSuper = true, exclude = "user")
-@ToString(exclude = {"accessToken", "refreshToken", "tokenHash"})
+@ToString(exclude = {"accessToken", "refreshToken", "tokenHash", "refreshTokenHash", "previousRefreshTokenHash"})
 public class UserSession extends BaseEntity {
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -55,6 +56,14 @@ public class UserSession extends BaseEntity {
     @Column(name = "token_hash", length = 255)
     private String tokenHash;
 
+    // SHA-256 of the current refresh token; raw refresh tokens are not stored
+    @Column(name = "refresh_token_hash", columnDefinition = "BINARY(32)", unique = true)
+    private byte[] refreshTokenHash;
+
+    // Hash of the token rotated out last, kept to detect reuse; older tokens are not kept
+    @Column(name = "previous_refresh_token_hash", columnDefinition = "BINARY(32)")
+    private byte[] previousRefreshTokenHash;
+
     @Column(name = "login_at")
     private LocalDateTime loginAt;
 
@@ -0,0 +1,41 @@
+package ai.uniauth.rep;
+
+import ai.uniauth.models.ApiKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Repository
+public interface ApiKeyRep extends JpaRepository<ApiKey, UUID> {
+
+    // Basic Finders
+    Optional<ApiKey> findByKeyPrefix(String keyPrefix);
+    List<ApiKey> findByUniSystemId(UUID systemId);
+
+    // Index rows: id, prefix, hash, system id, expiry, permissions, key and system rate limits
+    // and allowed IPs of keys that can be used now
+    @Query("SELECT k.id, k.keyPrefix, k.apiKeyHash, k.uniSystem.id, k.expiresAt, k.permissions, " +
+            "k.rateLimit, k.uniSystem.rateLimit, k.allowedIps FROM ApiKey k " +
+            "WHERE k.isActive = true AND k.keyPrefix IS NOT NULL AND k.uniSystem.isActive = true " +
+            "AND (k.expiresAt IS NULL OR k.expiresAt > :now)")
+    List<Object[]> findIndexRows(@Param("now") LocalDateTime now);
+
+    @Query("SELECT k.id, k.keyPrefix, k.apiKeyHash, k.uniSystem.id, k.expiresAt, k.permissions, " +
+            "k.rateLimit, k.uniSystem.rateLimit, k.allowedIps FROM ApiKey k " +
+            "WHERE k.id = :id AND k.isActive = true AND k.keyPrefix IS NOT NULL AND k.uniSystem.isActive = true " +
+            "AND (k.expiresAt IS NULL OR k.expiresAt > :now)")
+    List<Object[]> findIndexRowById(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    // Update Queries
+    @Modifying
+    @Query("UPDATE ApiKey k SET k.isActive = false, k.revokedAt = CURRENT_TIMESTAMP, " +
+            "k.revokedReason = :reason WHERE k.id = :id AND k.isActive = true")
+    int revoke(@Param("id") UUID id, @Param("reason") String reason);
+}
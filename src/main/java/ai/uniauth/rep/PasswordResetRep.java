@@ -2,6 +2,7 @@ package ai.uniauth.rep;
 
 import ai.uniauth.models.PasswordReset;
 import ai.uniauth.models.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -17,7 +18,7 @@ import java.util.UUID;
 public interface PasswordResetRep extends JpaRepository<PasswordReset, String> {
 
     // Basic Finders
-    Optional<PasswordReset> findByToken(String token);
+    Optional<PasswordReset> findByTokenHash(String tokenHash);
     List<PasswordReset> findByUserId(UUID userId);
     List<PasswordReset> findByUser(User user);
 
@@ -42,9 +43,13 @@ public interface PasswordResetRep extends JpaRepository<PasswordReset, String> {
     List<PasswordReset> findByUsedIp(String usedIp);
 
     // Validation Queries
-    @Query("SELECT COUNT(pr) > 0 FROM PasswordReset pr WHERE pr.token = :token AND " +
+    @Query("SELECT COUNT(pr) > 0 FROM PasswordReset pr WHERE pr.tokenHash = :tokenHash AND " +
             "pr.isUsed = false AND pr.expiresAt > CURRENT_TIMESTAMP")
-    boolean isValidToken(@Param("token") String token);
+    boolean isValidToken(@Param("tokenHash") String tokenHash);
+
+    @Query("SELECT pr.user.id, pr.expiresAt FROM PasswordReset pr WHERE pr.tokenHash = :tokenHash AND " +
+            "pr.isUsed = false AND pr.expiresAt > :now")
+    List<Object[]> findOutstandingToken(@Param("tokenHash") String tokenHash, @Param("now") LocalDateTime now);
 
     // Recent tokens for user
     @Query("SELECT pr FROM PasswordReset pr WHERE pr.user.id = :userId AND " +
@@ -57,12 +62,17 @@ public interface PasswordResetRep extends JpaRepository<PasswordReset, String> {
     long countRecentTokensForUser(@Param("userId") UUID userId, @Param("since") LocalDateTime since);
 
     // Update Queries
+    // Only succeeds once, and only while the token is unexpired
     @Modifying
     @Query("UPDATE PasswordReset pr SET pr.isUsed = true, pr.usedAt = CURRENT_TIMESTAMP, " +
-            "pr.usedIp = :ipAddress WHERE pr.token = :token")
-    int markAsUsed(@Param("token") String token, @Param("ipAddress") String ipAddress);
+            "pr.usedIp = :ipAddress WHERE pr.tokenHash = :tokenHash AND pr.isUsed = false " +
+            "AND pr.expiresAt > CURRENT_TIMESTAMP")
+    int markAsUsed(@Param("tokenHash") String tokenHash, @Param("ipAddress") String ipAddress);
 
     // Cleanup
+    @Query("SELECT pr.tokenHash FROM PasswordReset pr WHERE pr.expiresAt < :cutoffDate ORDER BY pr.expiresAt")
+    List<String> findExpiredTokenHashes(@Param("cutoffDate") LocalDateTime cutoffDate, Pageable pageable);
+
     @Modifying
     @Query("DELETE FROM PasswordReset pr WHERE pr.expiresAt < :cutoffDate")
     int deleteExpiredTokens(@Param("cutoffDate") LocalDateTime cutoffDate);
@@ -68,6 +68,9 @@ public interface PermissionRep extends JpaRepository<Permission, UUID>, JpaSpeci
             "WHERE u.id = :userId AND rp.accessLevel = 'ALLOW'")
     Set<String> findPermissionCodesByUserId(@Param("userId") UUID userId);
 
+    @Query("SELECT p.code FROM Permission p")
+    List<String> findAllCodes();
+
     // Bulk Operations
     @Query("SELECT p FROM Permission p WHERE p.code IN :codes")
     List<Permission> findByCodes(@Param("codes") Set<String> codes);
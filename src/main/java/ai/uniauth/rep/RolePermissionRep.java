@@ -91,9 +91,24 @@ public interface RolePermissionRep extends JpaRepository<RolePermission, UUID> {
             "WHERE rp.role.id = :roleId AND rp.accessLevel = 'ALLOW'")
     Set<String> findPermissionCodesByRoleId(@Param("roleId") UUID roleId);
 
+    @Query("SELECT rp.role.id, p.code FROM RolePermission rp " +
+            "JOIN rp.permission p " +
+            "WHERE rp.accessLevel = 'ALLOW'")
+    List<Object[]> findAllowedRolePermissionCodes();
+
+    @Query("SELECT rp.role.id, p.code FROM RolePermission rp JOIN rp.permission p")
+    List<Object[]> findAllRolePermissionCodes();
+
+    @Query("SELECT rp.id, rp.role.id, rp.conditions, rp.scopeFilter FROM RolePermission rp " +
+            "WHERE rp.permission.id = :permissionId AND rp.accessLevel = 'ALLOW'")
+    List<Object[]> findAllowedGrantRulesByPermissionId(@Param("permissionId") UUID permissionId);
+
     @Query("SELECT DISTINCT rp.role.id FROM RolePermission rp WHERE rp.permission.id = :permissionId")
     Set<UUID> findRoleIdsByPermissionId(@Param("permissionId") UUID permissionId);
 
+    @Query("SELECT rp.role.id FROM RolePermission rp WHERE rp.id = :id")
+    Optional<UUID> findRoleIdById(@Param("id") UUID id);
+
     // Check if role has permission
     @Query("SELECT COUNT(rp) > 0 FROM RolePermission rp " +
             "WHERE rp.role.id = :roleId AND rp.permission.id = :permissionId AND rp.accessLevel = 'ALLOW'")
@@ -41,6 +41,10 @@ public interface RoleRep extends JpaRepository<Role, UUID>, JpaSpecificationExec
     List<Role> findByParentId(UUID parentId);
     List<Role> findByParentIsNull();
 
+    @Query("SELECT r.id, p.id FROM Role r LEFT JOIN r.parent p " +
+            "WHERE r.isDeleted IS NULL OR r.isDeleted = false")
+    List<Object[]> findActiveRoleParentIds();
+
     // Search Queries
     @Query("SELECT r FROM Role r WHERE " +
             "LOWER(r.name) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
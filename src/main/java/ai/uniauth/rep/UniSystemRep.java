@@ -46,6 +46,10 @@ public interface UniSystemRep extends JpaRepository<UniSystem, UUID>, JpaSpecifi
             "LOWER(s.description) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     Page<UniSystem> search(@Param("keyword") String keyword, Pageable pageable);
 
+    // IP rules: id and JSON config of active systems that have a config
+    @Query("SELECT s.id, s.config FROM UniSystem s WHERE s.isActive = true AND s.config IS NOT NULL")
+    List<Object[]> findActiveConfigRows();
+
     // Update Queries
     @Modifying
     @Query("UPDATE UniSystem s SET s.isActive = :isActive WHERE s.id = :systemId")
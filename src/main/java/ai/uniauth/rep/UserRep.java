@@ -29,6 +29,19 @@ public interface UserRep extends JpaRepository<User, UUID>, JpaSpecificationExec
     boolean existsByEmail(String email);
     boolean existsByPhoneNumber(String phoneNumber);
 
+    @Query("SELECT u.username, u.email, u.phoneNumber FROM User u")
+    List<Object[]> findAllIdentifiers();
+
+    // One round trip for any combination of identifiers; null parameters match nothing. Stored phone
+    // numbers are compared in UserIdentifierIndex.normalize form, so rows saved in any format match;
+    // that branch is separate so the username and email lookups keep their indexes
+    @Query("SELECT u.username, u.email, u.phoneNumber FROM User u WHERE u.username = :username OR u.email = :email " +
+            "UNION ALL SELECT u.username, u.email, u.phoneNumber FROM User u WHERE :phoneNumber IS NOT NULL " +
+            "AND function('regexp_replace', function('regexp_replace', u.phoneNumber, '[^0-9+]', ''), '(?!^)[+]', '') = :phoneNumber")
+    List<Object[]> findIdentifierMatches(@Param("username") String username,
+                                         @Param("email") String email,
+                                         @Param("phoneNumber") String phoneNumber);
+
     // Status-based Finders
     List<User> findByStatus(UserStatus status);
     Page<User> findByStatus(UserStatus status, Pageable pageable);
@@ -125,6 +138,13 @@ public interface UserRep extends JpaRepository<User, UUID>, JpaSpecificationExec
             "u.updatedAt = CURRENT_TIMESTAMP WHERE u.id = :userId")
     int updatePassword(@Param("userId") UUID userId, @Param("passwordHash") String passwordHash);
 
+    // Same password, stronger hash: only swaps the hash if it has not changed meanwhile
+    @Modifying
+    @Query("UPDATE User u SET u.passwordHash = :newHash WHERE u.id = :userId AND u.passwordHash = :oldHash")
+    int updatePasswordHash(@Param("userId") UUID userId,
+                           @Param("oldHash") String oldHash,
+                           @Param("newHash") String newHash);
+
     // Bulk Operations
     @Modifying
     @Query("UPDATE User u SET u.status = :newStatus WHERE u.status = :oldStatus AND u.lastLoginAt < :cutoffDate")
@@ -144,6 +164,23 @@ public interface UserRep extends JpaRepository<User, UUID>, JpaSpecificationExec
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.roles r LEFT JOIN FETCH r.permissions WHERE u.id = :userId")
     Optional<User> findByIdWithRolesAndPermissions(@Param("userId") UUID userId);
 
+    // Only ALLOW grants are effective permissions, as in RoleHierarchyIndex
+    @Query("SELECT u.id, r.id, p.code FROM User u " +
+            "LEFT JOIN u.roles r " +
+            "LEFT JOIN r.permissions rp ON rp.accessLevel = 'ALLOW' " +
+            "LEFT JOIN rp.permission p " +
+            "WHERE u.id IN :userIds")
+    List<Object[]> findRolePermissionCodesByUserIds(@Param("userIds") Set<UUID> userIds);
+
+    // Roles and permissions without a system are global and belong to every system's partition
+    @Query("SELECT u.id, r.id, p.code FROM User u " +
+            "LEFT JOIN u.roles r ON r.uniSystem IS NULL OR r.uniSystem.id = :systemId " +
+            "LEFT JOIN r.permissions rp ON rp.accessLevel = 'ALLOW' " +
+            "LEFT JOIN rp.permission p ON p.uniSystem IS NULL OR p.uniSystem.id = :systemId " +
+            "WHERE u.id IN :userIds")
+    List<Object[]> findRolePermissionCodesByUserIdsAndSystem(@Param("userIds") Set<UUID> userIds,
+                                                             @Param("systemId") UUID systemId);
+
     @Query("SELECT u FROM User u LEFT JOIN FETCH u.sessions WHERE u.id = :userId")
     Optional<User> findByIdWithSessions(@Param("userId") UUID userId);
 }
\ No newline at end of file
@@ -3,6 +3,7 @@ package ai.uniauth.rep;
 import ai.uniauth.models.Role;
 import ai.uniauth.models.User;
 import ai.uniauth.models.UserRole;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -40,6 +41,19 @@ public interface UserRoleRep extends JpaRepository<UserRole, UUID> {
     List<UserRole> findExpiringUserRoles(@Param("start") LocalDateTime start,
                                          @Param("end") LocalDateTime end);
 
+    @Query("SELECT ur.id, ur.user.id, ur.role.id, ur.expiresAt FROM UserRole ur " +
+            "WHERE ur.expiresAt IS NOT NULL AND ur.expiresAt <= :end")
+    List<Object[]> findExpiryEntriesUntil(@Param("end") LocalDateTime end);
+
+    @Query("SELECT ur.id, ur.user.id, ur.role.id, ur.expiresAt FROM UserRole ur WHERE ur.id = :id")
+    List<Object[]> findExpiryEntryById(@Param("id") UUID id);
+
+    @Query("SELECT DISTINCT ur.user.id FROM UserRole ur WHERE ur.role.uniSystem.id = :systemId")
+    List<UUID> findUserIdsBySystemId(@Param("systemId") UUID systemId, Pageable pageable);
+
+    @Query("SELECT ur.user.id, ur.role.id FROM UserRole ur")
+    List<Object[]> findAllUserRoleIds();
+
     // Temporary Roles
     List<UserRole> findByIsTemporaryTrue();
     List<UserRole> findByIsTemporaryFalse();
@@ -68,6 +82,13 @@ public interface UserRoleRep extends JpaRepository<UserRole, UUID> {
     @Query("DELETE FROM UserRole ur WHERE ur.user.id = :userId AND ur.role.id IN :roleIds")
     int deleteByUserIdAndRoleIds(@Param("userId") UUID userId, @Param("roleIds") Set<UUID> roleIds);
 
+    @Modifying
+    @Query("DELETE FROM UserRole ur WHERE ur.user.id = :userId AND ur.role.id IN :roleIds " +
+            "AND ur.expiresAt IS NOT NULL AND ur.expiresAt <= :cutoff")
+    int deleteByUserIdAndRoleIdsExpiredBefore(@Param("userId") UUID userId,
+                                              @Param("roleIds") Set<UUID> roleIds,
+                                              @Param("cutoff") LocalDateTime cutoff);
+
     @Modifying
     @Query("DELETE FROM UserRole ur WHERE ur.role.id = :roleId")
     int deleteByRoleId(@Param("roleId") UUID roleId);
@@ -12,6 +12,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -24,6 +25,12 @@ public interface UserSessionRep extends JpaRepository<UserSession, UUID> {
     Optional<UserSession> findByAccessToken(String accessToken);
     Optional<UserSession> findByTokenHash(String tokenHash);
 
+    @Query("SELECT s FROM UserSession s JOIN FETCH s.user WHERE s.refreshTokenHash = :hash")
+    Optional<UserSession> findByRefreshTokenHash(@Param("hash") byte[] hash);
+
+    @Query("SELECT s FROM UserSession s WHERE s.previousRefreshTokenHash = :hash")
+    Optional<UserSession> findByPreviousRefreshTokenHash(@Param("hash") byte[] hash);
+
     // User-based Finders
     List<UserSession> findByUserId(UUID userId);
     List<UserSession> findByUser(User user);
@@ -77,11 +84,16 @@ public interface UserSessionRep extends JpaRepository<UserSession, UUID> {
     @Modifying
     @Query("UPDATE UserSession s SET s.isActive = false, s.logoutAt = CURRENT_TIMESTAMP, " +
             "s.logoutReason = :reason WHERE s.id = :sessionId")
-    int logoutSession(@Param("sessionId") String sessionId, @Param("reason") String reason);
+    int logoutSession(@Param("sessionId") UUID sessionId, @Param("reason") String reason);
+
+    @Modifying
+    @Query("UPDATE UserSession s SET s.isActive = false, s.logoutAt = CURRENT_TIMESTAMP, " +
+            "s.logoutReason = :reason WHERE s.id IN :sessionIds AND s.isActive = true")
+    int logoutSessions(@Param("sessionIds") Collection<UUID> sessionIds, @Param("reason") String reason);
 
     @Modifying
     @Query("UPDATE UserSession s SET s.isActive = false, s.logoutAt = CURRENT_TIMESTAMP, " +
-            "s.logoutReason = :reason WHERE s.user.id = :userId")
+            "s.logoutReason = :reason WHERE s.user.id = :userId AND s.isActive = true")
     int logoutAllUserSessions(@Param("userId") UUID userId, @Param("reason") String reason);
 
     @Modifying
@@ -95,6 +107,46 @@ public interface UserSessionRep extends JpaRepository<UserSession, UUID> {
                           @Param("accessToken") String accessToken,
                           @Param("expiresAt") LocalDateTime expiresAt);
 
+    // Token and session IDs of logged-out sessions whose access token is still within its lifetime
+    @Query("SELECT s.tokenHash, s.accessTokenExpires, s.id FROM UserSession s WHERE s.isActive = false " +
+            "AND s.tokenHash IS NOT NULL AND s.accessTokenExpires > :now")
+    List<Object[]> findRevokedTokenIds(@Param("now") LocalDateTime now);
+
+    @Query("SELECT s.id, s.user.id, s.ipAddress, s.userAgent, s.loginAt, s.accessTokenExpires, s.refreshTokenExpires " +
+            "FROM UserSession s WHERE s.isActive = true " +
+            "AND (s.refreshTokenExpires IS NULL OR s.refreshTokenExpires > :now)")
+    List<Object[]> findActiveSessionRows(@Param("now") LocalDateTime now);
+
+    // Only succeeds for the caller still holding the current refresh token
+    @Modifying
+    @Query("UPDATE UserSession s SET s.refreshTokenHash = :newHash, s.previousRefreshTokenHash = :oldHash, " +
+            "s.tokenHash = :tokenId, s.accessTokenExpires = :accessExpires, s.refreshTokenExpires = :refreshExpires " +
+            "WHERE s.id = :sessionId AND s.refreshTokenHash = :oldHash AND s.isActive = true")
+    int rotateRefreshToken(@Param("sessionId") UUID sessionId,
+                           @Param("oldHash") byte[] oldHash,
+                           @Param("newHash") byte[] newHash,
+                           @Param("tokenId") String tokenId,
+                           @Param("accessExpires") LocalDateTime accessExpires,
+                           @Param("refreshExpires") LocalDateTime refreshExpires);
+
+    // Keyset pages for the session reaper; each page starts after the last (expiry, id) seen
+    @Query("SELECT s.id, s.accessTokenExpires FROM UserSession s WHERE s.isActive = true " +
+            "AND s.accessTokenExpires < :now AND (s.refreshTokenExpires IS NULL OR s.refreshTokenExpires < :now) " +
+            "AND (s.accessTokenExpires > :afterExpires OR (s.accessTokenExpires = :afterExpires AND s.id > :afterId)) " +
+            "ORDER BY s.accessTokenExpires, s.id")
+    List<Object[]> findExpiredSessionKeys(@Param("now") LocalDateTime now,
+                                          @Param("afterExpires") LocalDateTime afterExpires,
+                                          @Param("afterId") UUID afterId,
+                                          Pageable pageable);
+
+    @Query("SELECT s.id, s.logoutAt FROM UserSession s WHERE s.logoutAt < :cutoffDate " +
+            "AND (s.logoutAt > :afterLogout OR (s.logoutAt = :afterLogout AND s.id > :afterId)) " +
+            "ORDER BY s.logoutAt, s.id")
+    List<Object[]> findLoggedOutSessionKeys(@Param("cutoffDate") LocalDateTime cutoffDate,
+                                            @Param("afterLogout") LocalDateTime afterLogout,
+                                            @Param("afterId") UUID afterId,
+                                            Pageable pageable);
+
     // Bulk Operations
     @Modifying
     @Query("UPDATE UserSession s SET s.isActive = false, s.logoutAt = CURRENT_TIMESTAMP " +
@@ -0,0 +1,77 @@
+package ai.uniauth.security;
+
+import ai.uniauth.exception.ServiceOverloadedException;
+import ai.uniauth.service.system.ApiKeyIndex;
+import ai.uniauth.service.system.SystemIpRules;
+import ai.uniauth.service.system.SystemRateLimiter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+
+import java.io.IOException;
+import java.util.Optional;
+
+/**
+ * Authenticates machine-to-machine requests carrying an {@code X-API-Key} header against
+ * the in-memory {@link ApiKeyIndex}, checks the client address against the key's and its
+ * system's {@link SystemIpRules} and applies their rate limits. A refused address gets 403,
+ * a request over a limit 429 and one arriving before the IP rules are loaded 503, all
+ * before any controller runs; requests without a valid key continue unauthenticated.
+ */
+@Component
+public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String API_KEY_HEADER = "X-API-Key";
+
+    private final ApiKeyIndex apiKeyIndex;
+    private final SystemIpRules systemIpRules;
+    private final SystemRateLimiter systemRateLimiter;
+    private final HandlerExceptionResolver handlerExceptionResolver;
+
+    public ApiKeyAuthenticationFilter(ApiKeyIndex apiKeyIndex,
+                                      SystemIpRules systemIpRules,
+                                      SystemRateLimiter systemRateLimiter,
+                                      @Qualifier("handlerExceptionResolver") HandlerExceptionResolver handlerExceptionResolver) {
+        this.apiKeyIndex = apiKeyIndex;
+        this.systemIpRules = systemIpRules;
+        this.systemRateLimiter = systemRateLimiter;
+        this.handlerExceptionResolver = handlerExceptionResolver;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null) {
+            Optional<ApiKeyIndex.Entry> entry = apiKeyIndex.authenticate(apiKey.trim());
+            if (entry.isPresent()) {
+                try {
+                    if (!systemIpRules.isAllowed(entry.get(), request.getRemoteAddr())) {
+                        throw new AccessDeniedException("Client address is not allowed for this API key");
+                    }
+                    systemRateLimiter.acquire(entry.get());
+                } catch (AccessDeniedException | ServiceOverloadedException e) {
+                    // Rendered by the global exception handler, like any other 403, 429 or 503
+                    handlerExceptionResolver.resolveException(request, response, null, e);
+                    return;
+                }
+                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                        entry.get(), null, entry.get().permissions().stream().map(SimpleGrantedAuthority::new).toList());
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
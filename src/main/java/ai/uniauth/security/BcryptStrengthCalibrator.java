@@ -0,0 +1,40 @@
+package ai.uniauth.security;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * Picks the highest bcrypt cost whose hash time stays within a latency budget on the
+ * current hardware. Each cost step doubles the work, so one measurement at the
+ * minimum cost is enough to extrapolate.
+ */
+@Slf4j
+public final class BcryptStrengthCalibrator {
+
+    private static final int SAMPLES = 3;
+    private static final String PROBE = "calibration-probe-password";
+
+    private BcryptStrengthCalibrator() {
+    }
+
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(minStrength);
+        encoder.encode(PROBE); // warm up
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(PROBE);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+
+        double millis = best / 1_000_000.0;
+        int strength = minStrength;
+        while (strength < maxStrength && millis * 2 <= targetMillis) {
+            millis *= 2;
+            strength++;
+        }
+        log.info("Calibrated bcrypt strength {} (~{} ms per hash, budget {} ms)",
+                strength, Math.round(millis), targetMillis);
+        return strength;
+    }
+}
@@ -0,0 +1,55 @@
+package ai.uniauth.security;
+
+import ai.uniauth.service.user.ActivityTimestampCoalescer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Authenticates requests carrying a bearer access token. Verification is local to
+ * {@link JwtTokenProvider} and revocation is checked against the in-memory
+ * {@link TokenRevocationList}; no session lookup happens here. Requests without a valid
+ * token continue unauthenticated and are left to the authorization rules.
+ */
+@Component
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationList tokenRevocationList;
+    private final ActivityTimestampCoalescer activityTimestampCoalescer;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header != null && header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            JwtTokenProvider.VerifiedToken token = jwtTokenProvider.verify(header.substring(BEARER_PREFIX.length()).trim());
+            if (token != null && !tokenRevocationList.isRevoked(token)) {
+                if (token.sessionId() != null) {
+                    activityTimestampCoalescer.recordSessionActivity(token.sessionId(), LocalDateTime.now());
+                }
+                UsernamePasswordAuthenticationToken authentication =
+                        new UsernamePasswordAuthenticationToken(token, null, List.of());
+                SecurityContext context = SecurityContextHolder.createEmptyContext();
+                context.setAuthentication(authentication);
+                SecurityContextHolder.setContext(context);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,148 @@
+package ai.uniauth.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Issues and verifies access tokens. The signing key and parser are built once; verified
+ * claims are cached by SHA-256 of the token until the token expires, so a repeated token
+ * costs one digest and one map read instead of a signature check and JSON parse. Raw
+ * tokens are never kept in memory.
+ */
+@Slf4j
+@Component
+public class JwtTokenProvider {
+
+    private static final String USERNAME_CLAIM = "username";
+    private static final String SESSION_CLAIM = "sid";
+    private static final long PURGE_INTERVAL_MILLIS = 1000;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long expirationMs;
+    private final int cacheMaxSize;
+    private final Map<String, VerifiedToken> cache = new ConcurrentHashMap<>();
+    private volatile long lastPurgeMillis;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    public JwtTokenProvider(@Value("${jwt.secret}") String secret,
+                            @Value("${jwt.expirationMs}") long expirationMs,
+                            @Value("${uni.auth.jwt.claims-cache.max-size:100000}") int cacheMaxSize) {
+        this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+        this.expirationMs = expirationMs;
+        this.cacheMaxSize = cacheMaxSize;
+    }
+
+    public IssuedToken issueAccessToken(UUID userId, String username, UUID sessionId) {
+        String tokenId = UUID.randomUUID().toString();
+        Instant now = Instant.now();
+        Instant expiresAt = now.plusMillis(expirationMs);
+        String token = Jwts.builder()
+                .setId(tokenId)
+                .setSubject(userId.toString())
+                .claim(USERNAME_CLAIM, username)
+                .claim(SESSION_CLAIM, sessionId != null ? sessionId.toString() : null)
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(expiresAt))
+                .signWith(signingKey)
+                .compact();
+        return new IssuedToken(token, tokenId, expiresAt);
+    }
+
+    /**
+     * @return the token's claims, or null if the signature is invalid or the token has expired
+     */
+    public VerifiedToken verify(String token) {
+        String key = digest(token);
+        long now = System.currentTimeMillis();
+        VerifiedToken cached = cache.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > now) {
+                hits.increment();
+                return cached;
+            }
+            cache.remove(key, cached);
+        }
+
+        misses.increment();
+        VerifiedToken verified;
+        try {
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            String sessionId = claims.get(SESSION_CLAIM, String.class);
+            verified = new VerifiedToken(UUID.fromString(claims.getSubject()), claims.get(USERNAME_CLAIM, String.class),
+                    claims.getId(), sessionId != null ? UUID.fromString(sessionId) : null,
+                    claims.getIssuedAt().getTime(), claims.getExpiration().getTime());
+        } catch (JwtException | IllegalArgumentException | NullPointerException e) {
+            rejected.increment();
+            log.debug("Rejected access token: {}", e.getMessage());
+            return null;
+        }
+        if (cache.size() >= cacheMaxSize) {
+            purgeExpired(now);
+        }
+        if (cache.size() < cacheMaxSize) {
+            cache.put(key, verified);
+        }
+        return verified;
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "cached", (long) cache.size(),
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "rejected", rejected.sum()
+        );
+    }
+
+    private void purgeExpired(long now) {
+        // Bounded to once per interval so a cache full of live tokens does not rescan on every miss
+        if (now - lastPurgeMillis < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurgeMillis = now;
+        cache.values().removeIf(token -> token.expiresAtMillis() <= now);
+    }
+
+    private static String digest(String token) {
+        byte[] hash = SHA_256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hash);
+    }
+
+    public record IssuedToken(String token, String tokenId, Instant expiresAt) {
+    }
+
+    public record VerifiedToken(UUID userId, String username, String tokenId, UUID sessionId,
+                                long issuedAtMillis, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,194 @@
+package ai.uniauth.security;
+
+import ai.uniauth.exception.ServiceOverloadedException;
+import ai.uniauth.rep.LoginAttemptRep;
+import ai.uniauth.util.SlidingWindowCounter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Recent failed sign-ins per client IP, username and user, counted in memory over a
+ * sliding window. IPs and usernames over their limit are throttled before any lookup or
+ * hashing; a user over the limit is locked out. For one window after startup, keys seen
+ * for the first time are seeded from {@code login_attempts} so a restart does not reset
+ * the counts.
+ */
+@Slf4j
+@Component
+public class LoginFailureTracker {
+
+    private static final int BUCKETS = 30;
+
+    private final LoginAttemptRep loginAttemptRep;
+    private final long windowMillis;
+    private final int maxFailuresPerIp;
+    private final int maxFailuresPerUsername;
+    private final int maxFailuresPerUser;
+    private final long lockoutMinutes;
+    private final long seedUntilMillis;
+
+    private final SlidingWindowCounter<String> ipFailures;
+    private final SlidingWindowCounter<String> usernameFailures;
+    private final SlidingWindowCounter<UUID> userFailures;
+
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder seeded = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    public LoginFailureTracker(LoginAttemptRep loginAttemptRep,
+                               @Value("${uni.auth.throttle.window-minutes:15}") long windowMinutes,
+                               @Value("${uni.auth.throttle.max-failures-per-ip:50}") int maxFailuresPerIp,
+                               @Value("${uni.auth.throttle.max-failures-per-username:10}") int maxFailuresPerUsername,
+                               @Value("${uni.auth.throttle.max-failures-per-user:10}") int maxFailuresPerUser,
+                               @Value("${uni.auth.throttle.lockout-minutes:15}") long lockoutMinutes) {
+        this.loginAttemptRep = loginAttemptRep;
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+        this.maxFailuresPerIp = maxFailuresPerIp;
+        this.maxFailuresPerUsername = maxFailuresPerUsername;
+        this.maxFailuresPerUser = maxFailuresPerUser;
+        this.lockoutMinutes = lockoutMinutes;
+        this.seedUntilMillis = System.currentTimeMillis() + windowMillis;
+        this.ipFailures = new SlidingWindowCounter<>(windowMillis, BUCKETS);
+        this.usernameFailures = new SlidingWindowCounter<>(windowMillis, BUCKETS);
+        this.userFailures = new SlidingWindowCounter<>(windowMillis, BUCKETS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "login-failure-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = ipFailures.getBucketMillis();
+        executor.scheduleWithFixedDelay(this::expire, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @throws ServiceOverloadedException with 429 if the IP or username has too many recent failures
+     */
+    public void checkAllowed(String ipAddress, String username) {
+        long now = System.currentTimeMillis();
+        if (ipAddress != null
+                && count(ipFailures, ipAddress, now, loginAttemptRep::countRecentFailedAttemptsByIp) >= maxFailuresPerIp) {
+            throw throttle("Too many failed sign-ins from this address");
+        }
+        String key = normalize(username);
+        if (key != null
+                && count(usernameFailures, key, now, loginAttemptRep::countRecentFailedAttemptsByUsername) >= maxFailuresPerUsername) {
+            throw throttle("Too many failed sign-ins for this account");
+        }
+    }
+
+    /**
+     * @param userId null when the username did not match any user
+     * @return when the user should stay locked until, or null if the lockout threshold is not reached
+     */
+    public LocalDateTime recordFailure(String ipAddress, String username, UUID userId) {
+        long now = System.currentTimeMillis();
+        if (ipAddress != null) {
+            seedIfNew(ipFailures, ipAddress, now, loginAttemptRep::countRecentFailedAttemptsByIp);
+            ipFailures.increment(ipAddress, now);
+        }
+        String key = normalize(username);
+        if (key != null) {
+            seedIfNew(usernameFailures, key, now, loginAttemptRep::countRecentFailedAttemptsByUsername);
+            usernameFailures.increment(key, now);
+        }
+        if (userId == null) {
+            return null;
+        }
+        seedIfNew(userFailures, userId, now, loginAttemptRep::countRecentFailedAttemptsByUserId);
+        if (userFailures.increment(userId, now) < maxFailuresPerUser) {
+            return null;
+        }
+        return LocalDateTime.now().plusMinutes(lockoutMinutes);
+    }
+
+    public void recordSuccess(String username, UUID userId) {
+        String key = normalize(username);
+        if (key != null) {
+            usernameFailures.reset(key);
+        }
+        userFailures.reset(userId);
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "trackedIps", (long) ipFailures.size(),
+                "trackedUsernames", (long) usernameFailures.size(),
+                "trackedUsers", (long) userFailures.size(),
+                "throttled", throttled.sum(),
+                "seeded", seeded.sum()
+        );
+    }
+
+    private <K> long count(SlidingWindowCounter<K> counter, K key, long now,
+                           SeedQuery<K> seedQuery) {
+        seedIfNew(counter, key, now, seedQuery);
+        return counter.count(key, now);
+    }
+
+    private <K> void seedIfNew(SlidingWindowCounter<K> counter, K key, long now, SeedQuery<K> seedQuery) {
+        if (now >= seedUntilMillis || counter.contains(key)) {
+            return;
+        }
+        LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(now - windowMillis), ZoneId.systemDefault());
+        long failures;
+        try {
+            failures = seedQuery.count(key, since);
+        } catch (RuntimeException e) {
+            log.warn("Failed to seed login failure count", e);
+            return;
+        }
+        if (counter.seed(key, failures, now)) {
+            seeded.increment();
+        }
+    }
+
+    private void expire() {
+        long now = System.currentTimeMillis();
+        ipFailures.expire(now);
+        usernameFailures.expire(now);
+        userFailures.expire(now);
+    }
+
+    private ServiceOverloadedException throttle(String message) {
+        throttled.increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(ipFailures.getBucketMillis()));
+        return new ServiceOverloadedException(HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds, message);
+    }
+
+    private static String normalize(String username) {
+        return username == null || username.isBlank() ? null : username.trim().toLowerCase(Locale.ROOT);
+    }
+
+    @FunctionalInterface
+    private interface SeedQuery<K> {
+        long count(K key, LocalDateTime since);
+    }
+}
@@ -0,0 +1,230 @@
+package ai.uniauth.security;
+
+import ai.uniauth.util.Base32;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.ShortBufferException;
+import javax.crypto.spec.SecretKeySpec;
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HOTP (RFC 4226) and TOTP (RFC 6238) codes over HMAC-SHA1. Each user's Base32 secret is
+ * decoded once into a cached key, and codes are computed with a per-thread {@link Mac} and
+ * buffers, so a check allocates nothing beyond the key switch. A TOTP time step is
+ * accepted at most once per user: a code that was already used, or one older than the
+ * last accepted, is rejected as a replay.
+ */
+@Slf4j
+@Component
+public class OneTimePasswordVerifier {
+
+    private static final String ALGORITHM = "HmacSHA1";
+    private static final int SECRET_BYTES = 20;
+    private static final int[] POWERS_OF_TEN = {1, 10, 100, 1_000, 10_000, 100_000, 1_000_000, 10_000_000, 100_000_000};
+    private static final long PURGE_INTERVAL_MILLIS = 60_000;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private static final ThreadLocal<Mac> MAC = ThreadLocal.withInitial(() -> {
+        try {
+            return Mac.getInstance(ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+    private static final ThreadLocal<byte[]> COUNTER = ThreadLocal.withInitial(() -> new byte[8]);
+    private static final ThreadLocal<byte[]> DIGEST = ThreadLocal.withInitial(() -> new byte[20]);
+
+    private final int digits;
+    private final long stepMillis;
+    private final int windowSteps;
+    private final int hotpLookAhead;
+    private final int keyCacheMaxSize;
+
+    private final Map<UUID, CachedKey> keys = new ConcurrentHashMap<>();
+    // Highest TOTP step accepted per user; entries outside the window are purged
+    private final Map<UUID, Long> lastUsedSteps = new ConcurrentHashMap<>();
+    private volatile long lastPurgeMillis;
+
+    private final LongAdder verified = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder replays = new LongAdder();
+
+    public OneTimePasswordVerifier(@Value("${uni.auth.mfa.digits:6}") int digits,
+                                   @Value("${uni.auth.mfa.step-seconds:30}") long stepSeconds,
+                                   @Value("${uni.auth.mfa.window-steps:1}") int windowSteps,
+                                   @Value("${uni.auth.mfa.hotp-look-ahead:10}") int hotpLookAhead,
+                                   @Value("${uni.auth.mfa.key-cache.max-size:100000}") int keyCacheMaxSize) {
+        if (digits < 6 || digits > 8) {
+            throw new IllegalArgumentException("OTP digits must be between 6 and 8");
+        }
+        this.digits = digits;
+        this.stepMillis = TimeUnit.SECONDS.toMillis(stepSeconds);
+        this.windowSteps = windowSteps;
+        this.hotpLookAhead = hotpLookAhead;
+        this.keyCacheMaxSize = keyCacheMaxSize;
+    }
+
+    public static String generateSecret() {
+        byte[] bytes = new byte[SECRET_BYTES];
+        RANDOM.nextBytes(bytes);
+        return Base32.encode(bytes);
+    }
+
+    public boolean verifyTotp(UUID userId, String secret, String code) {
+        return verifyTotp(userId, secret, code, System.currentTimeMillis());
+    }
+
+    boolean verifyTotp(UUID userId, String secret, String code, long nowMillis) {
+        int expected = parse(code);
+        if (expected < 0 || secret == null) {
+            rejected.increment();
+            return false;
+        }
+        SecretKeySpec key = keyFor(userId, secret);
+        if (key == null) {
+            rejected.increment();
+            return false;
+        }
+        long current = nowMillis / stepMillis;
+        purgeUsedSteps(current, nowMillis);
+        // Nearest steps first, so the common in-sync case costs one HMAC
+        for (int offset = 0; offset <= windowSteps; offset++) {
+            if (generate(key, current - offset) == expected) {
+                return accept(userId, current - offset);
+            }
+            if (offset > 0 && generate(key, current + offset) == expected) {
+                return accept(userId, current + offset);
+            }
+        }
+        rejected.increment();
+        return false;
+    }
+
+    /**
+     * @return the counter to store for the next check, or -1 if the code does not match
+     *         {@code counter} or any of the look-ahead counters after it
+     */
+    public long verifyHotp(UUID userId, String secret, String code, long counter) {
+        int expected = parse(code);
+        SecretKeySpec key = expected >= 0 && secret != null ? keyFor(userId, secret) : null;
+        if (key != null) {
+            for (long candidate = counter; candidate <= counter + hotpLookAhead; candidate++) {
+                if (generate(key, candidate) == expected) {
+                    verified.increment();
+                    return candidate + 1;
+                }
+            }
+        }
+        rejected.increment();
+        return -1;
+    }
+
+    public void invalidate(UUID userId) {
+        keys.remove(userId);
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "cachedKeys", (long) keys.size(),
+                "verified", verified.sum(),
+                "rejected", rejected.sum(),
+                "replays", replays.sum()
+        );
+    }
+
+    int generate(SecretKeySpec key, long counter) {
+        Mac mac = MAC.get();
+        byte[] message = COUNTER.get();
+        byte[] digest = DIGEST.get();
+        for (int i = 7; i >= 0; i--) {
+            message[i] = (byte) counter;
+            counter >>>= 8;
+        }
+        try {
+            mac.init(key);
+            mac.update(message);
+            mac.doFinal(digest, 0);
+        } catch (InvalidKeyException | ShortBufferException e) {
+            throw new IllegalStateException(e);
+        }
+        int offset = digest[digest.length - 1] & 0x0f;
+        int binary = ((digest[offset] & 0x7f) << 24)
+                | ((digest[offset + 1] & 0xff) << 16)
+                | ((digest[offset + 2] & 0xff) << 8)
+                | (digest[offset + 3] & 0xff);
+        return binary % POWERS_OF_TEN[digits];
+    }
+
+    private boolean accept(UUID userId, long step) {
+        while (true) {
+            Long last = lastUsedSteps.putIfAbsent(userId, step);
+            if (last == null || (last < step && lastUsedSteps.replace(userId, last, step))) {
+                verified.increment();
+                return true;
+            }
+            if (last >= step) {
+                replays.increment();
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return null if the stored secret is not valid Base32, so no code can match it
+     */
+    private SecretKeySpec keyFor(UUID userId, String secret) {
+        CachedKey cached = keys.get(userId);
+        if (cached != null && cached.secret.equals(secret)) {
+            return cached.key;
+        }
+        SecretKeySpec key;
+        try {
+            key = new SecretKeySpec(Base32.decode(secret), ALGORITHM);
+        } catch (IllegalArgumentException e) {
+            log.warn("Rejecting one-time password of user {} with a malformed stored secret", userId);
+            return null;
+        }
+        if (cached != null || keys.size() < keyCacheMaxSize) {
+            keys.put(userId, new CachedKey(secret, key));
+        }
+        return key;
+    }
+
+    private int parse(String code) {
+        if (code == null || code.length() != digits) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < digits; i++) {
+            char c = code.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private void purgeUsedSteps(long currentStep, long nowMillis) {
+        if (nowMillis - lastPurgeMillis < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurgeMillis = nowMillis;
+        // A step below the window can no longer be presented, so it blocks nothing
+        long oldestAcceptable = currentStep - windowSteps;
+        lastUsedSteps.values().removeIf(step -> step < oldestAcceptable);
+    }
+
+    private record CachedKey(String secret, SecretKeySpec key) {
+    }
+}
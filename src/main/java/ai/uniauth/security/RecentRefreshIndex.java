@@ -0,0 +1,112 @@
+package ai.uniauth.security;
+
+import ai.uniauth.service.dto.response.SessionTokens;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.stereotype.Component;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived index of refresh tokens rotated on this node. Concurrent and repeated
+ * refreshes with the same token share a single rotation and get the same new tokens
+ * within the grace period, so a client retry storm costs one database round trip and
+ * is not mistaken for token reuse.
+ */
+@Slf4j
+@Component
+public class RecentRefreshIndex {
+
+    private static final long WAIT_SECONDS = 10;
+    private static final long PURGE_INTERVAL_MILLIS = 1000;
+
+    private final long graceMillis;
+    private final Map<String, Rotation> rotations = new ConcurrentHashMap<>();
+    private volatile long lastPurgeMillis;
+
+    private final LongAdder rotated = new LongAdder();
+    private final LongAdder replayed = new LongAdder();
+
+    public RecentRefreshIndex(@Value("${uni.auth.refresh.grace-seconds:30}") long graceSeconds) {
+        this.graceMillis = TimeUnit.SECONDS.toMillis(graceSeconds);
+    }
+
+    public long getGraceMillis() {
+        return graceMillis;
+    }
+
+    /**
+     * Runs {@code rotation} once per token hash; callers presenting the same token while
+     * it runs or within the grace period receive its result.
+     */
+    public SessionTokens rotateOnce(byte[] tokenHash, Supplier<SessionTokens> rotation) {
+        long now = System.currentTimeMillis();
+        purgeExpired(now);
+        String key = Base64.getEncoder().encodeToString(tokenHash);
+        Rotation mine = new Rotation(new CompletableFuture<>(), now + graceMillis);
+        Rotation existing = rotations.putIfAbsent(key, mine);
+        if (existing != null && existing.expiresAtMillis > now) {
+            replayed.increment();
+            return await(existing.result);
+        }
+        if (existing != null && !rotations.replace(key, existing, mine)) {
+            return rotateOnce(tokenHash, rotation);
+        }
+
+        try {
+            SessionTokens tokens = rotation.get();
+            mine.result.complete(tokens);
+            rotated.increment();
+            return tokens;
+        } catch (RuntimeException e) {
+            // Failures are not remembered; the next attempt is judged on its own
+            rotations.remove(key, mine);
+            mine.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "tracked", (long) rotations.size(),
+                "rotated", rotated.sum(),
+                "replayed", replayed.sum()
+        );
+    }
+
+    private static SessionTokens await(CompletableFuture<SessionTokens> result) {
+        try {
+            return result.get(WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw new BadCredentialsException("Refresh is already in progress");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BadCredentialsException("Refresh interrupted");
+        }
+    }
+
+    private void purgeExpired(long now) {
+        if (now - lastPurgeMillis < PURGE_INTERVAL_MILLIS) {
+            return;
+        }
+        lastPurgeMillis = now;
+        rotations.values().removeIf(rotation -> rotation.expiresAtMillis <= now && rotation.result.isDone());
+    }
+
+    private record Rotation(CompletableFuture<SessionTokens> result, long expiresAtMillis) {
+    }
+}
@@ -0,0 +1,166 @@
+package ai.uniauth.security;
+
+import ai.uniauth.rep.UserSessionRep;
+import ai.uniauth.util.BloomFilter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Revoked access tokens that have not yet expired. Token and session IDs go through a
+ * Bloom filter in front of an exact map, so the common case of a live token is answered
+ * by the filter alone. Revoking a session covers every token rotated within it; revoking
+ * all of a user's tokens records a cut-off instead of token IDs. Entries are kept only
+ * until the tokens they cover would have expired anyway. The periodic rebuild drops
+ * expired entries and loads sessions logged out on other nodes.
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+    private static final long MIN_EXPECTED_INSERTIONS = 10_000;
+    private static final String SESSION_PREFIX = "sid:";
+
+    private final UserSessionRep userSessionRep;
+    private final long tokenLifetimeMillis;
+    private final double falsePositiveRate;
+    private final long rebuildMinutes;
+
+    private final Map<String, Long> revokedTokens = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> revokedUsers = new ConcurrentHashMap<>();
+    private volatile BloomFilter filter;
+
+    private final LongAdder checks = new LongAdder();
+    private final LongAdder filterPasses = new LongAdder();
+    private final LongAdder revokedHits = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    public TokenRevocationList(UserSessionRep userSessionRep,
+                               @Value("${jwt.expirationMs}") long tokenLifetimeMillis,
+                               @Value("${uni.auth.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${uni.auth.revocation.rebuild-minutes:5}") long rebuildMinutes) {
+        this.userSessionRep = userSessionRep;
+        this.tokenLifetimeMillis = tokenLifetimeMillis;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildMinutes = rebuildMinutes;
+        this.filter = new BloomFilter(MIN_EXPECTED_INSERTIONS, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "token-revocation");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public boolean isRevoked(JwtTokenProvider.VerifiedToken token) {
+        checks.increment();
+        Long cutoff = revokedUsers.get(token.userId());
+        if (cutoff != null && token.issuedAtMillis() <= cutoff) {
+            revokedHits.increment();
+            return true;
+        }
+        if (isListed(token.tokenId()) || (token.sessionId() != null && isListed(SESSION_PREFIX + token.sessionId()))) {
+            revokedHits.increment();
+            return true;
+        }
+        return false;
+    }
+
+    public void revoke(String tokenId, long expiresAtMillis) {
+        if (tokenId == null || expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        // The exact entry goes in before the filter bit; rebuild() relies on that order
+        revokedTokens.merge(tokenId, expiresAtMillis, Math::max);
+        filter.put(tokenId);
+    }
+
+    /**
+     * @param expiresAtMillis expiry of the session's latest access token
+     */
+    public void revokeSession(UUID sessionId, long expiresAtMillis) {
+        revoke(SESSION_PREFIX + sessionId, expiresAtMillis);
+    }
+
+    /**
+     * Revokes every token issued to the user up to now, including ones this node never saw.
+     */
+    public void revokeUser(UUID userId) {
+        // Token iat has second precision, so the whole current second is covered
+        long cutoff = System.currentTimeMillis() / 1000 * 1000;
+        revokedUsers.merge(userId, cutoff, Math::max);
+    }
+
+    public void rebuild() {
+        long now = System.currentTimeMillis();
+        ZoneId zone = ZoneId.systemDefault();
+        List<Object[]> rows = userSessionRep.findRevokedTokenIds(LocalDateTime.now());
+        for (Object[] row : rows) {
+            long expiresAt = ((LocalDateTime) row[1]).atZone(zone).toInstant().toEpochMilli();
+            revokedTokens.merge((String) row[0], expiresAt, Math::max);
+            revokedTokens.merge(SESSION_PREFIX + row[2], expiresAt, Math::max);
+        }
+        revokedTokens.values().removeIf(expiresAt -> expiresAt <= now);
+        revokedUsers.values().removeIf(cutoff -> cutoff + tokenLifetimeMillis <= now);
+
+        BloomFilter rebuilt = new BloomFilter(Math.max(MIN_EXPECTED_INSERTIONS, revokedTokens.size() * 2L),
+                falsePositiveRate);
+        revokedTokens.keySet().forEach(rebuilt::put);
+        filter = rebuilt;
+        // Catches revocations that put their bit into the previous filter while this one was filling
+        revokedTokens.keySet().forEach(rebuilt::put);
+        log.debug("Rebuilt token revocation list with {} tokens and {} users", revokedTokens.size(), revokedUsers.size());
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "revokedTokens", (long) revokedTokens.size(),
+                "revokedUsers", (long) revokedUsers.size(),
+                "checks", checks.sum(),
+                "filterPasses", filterPasses.sum(),
+                "revokedHits", revokedHits.sum()
+        );
+    }
+
+    private boolean isListed(String key) {
+        if (key == null || !filter.mightContain(key)) {
+            return false;
+        }
+        filterPasses.increment();
+        return revokedTokens.containsKey(key);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild token revocation list", e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ai.uniauth.service;
+
+import ai.uniauth.models.User;
+import ai.uniauth.security.JwtTokenProvider;
+import ai.uniauth.service.dto.response.SessionTokens;
+import ai.uniauth.service.session.ActiveSession;
+
+import java.util.List;
+import java.util.UUID;
+
+public interface SessionService {
+
+    SessionTokens openSession(User user, String ipAddress, String userAgent);
+    SessionTokens refreshSession(String refreshToken);
+    void closeSession(JwtTokenProvider.VerifiedToken token, String reason);
+    int closeAllSessions(UUID userId, String reason);
+    List<ActiveSession> getActiveSessions(UUID userId);
+    int countActiveSessions(UUID userId);
+}
@@ -44,7 +44,7 @@ public interface UserService extends UserDetailsService {
     void processPasswordReset(String token, String newPassword);
 
     // MFA Management
-    void enableMfa(UUID userId, String secret);
+    void enableMfa(UUID userId, String code);
     void disableMfa(UUID userId);
     boolean verifyMfa(UUID userId, String code);
     String generateMfaSecret(UUID userId);
@@ -83,6 +83,8 @@ public interface UserService extends UserDetailsService {
 
     // Authentication & Login
     User authenticate(String usernameOrEmail, String password);
+    User authenticate(String usernameOrEmail, String password, String ipAddress, String userAgent);
+    User authenticate(String usernameOrEmail, String password, String mfaCode, String ipAddress, String userAgent);
     void recordLoginAttempt(UUID userId, boolean success, String ipAddress, String userAgent);
     void updateLastLogin(UUID userId);
     int getFailedLoginAttempts(UUID userId);
@@ -103,6 +105,7 @@ public interface UserService extends UserDetailsService {
     boolean isUsernameAvailable(String username);
     boolean isEmailAvailable(String email);
     boolean isPhoneNumberAvailable(String phoneNumber);
+    Map<String, Boolean> checkAvailability(String username, String email, String phoneNumber);
 
     // Helper Methods
     User getCurrentUser();
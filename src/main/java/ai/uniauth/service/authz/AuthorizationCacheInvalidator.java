@@ -0,0 +1,92 @@
+package ai.uniauth.service.authz;
+
+import ai.uniauth.service.authz.condition.GrantConditionCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies {@link AuthorizationChangedEvent}s to the role index and snapshot cache after
+ * commit, evicting only the users and roles the change touched. Events published outside
+ * a transaction are applied immediately.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AuthorizationCacheInvalidator {
+
+    private final PermissionSnapshotCache permissionSnapshotCache;
+    private final RoleHierarchyIndex roleHierarchyIndex;
+    private final GrantConditionCache grantConditionCache;
+
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictedSnapshots = new LongAdder();
+    private final LongAccumulator maxFanOut = new LongAccumulator(Math::max, 0);
+    private final LongAdder fullReloads = new LongAdder();
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAuthorizationChanged(AuthorizationChangedEvent event) {
+        int fanOut;
+        try {
+            fanOut = apply(event);
+        } catch (RuntimeException e) {
+            // The change is already committed, so fall back to a full rebuild rather than serve stale grants
+            log.warn("Incremental invalidation failed for {}, rebuilding authorization caches", event, e);
+            fullReloads.increment();
+            roleHierarchyIndex.reload();
+            permissionSnapshotCache.invalidateAll();
+            grantConditionCache.evictAll();
+            return;
+        }
+        invalidations.increment();
+        evictedSnapshots.add(fanOut);
+        maxFanOut.accumulate(fanOut);
+        log.debug("Applied {}, evicted {} snapshots", event, fanOut);
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "invalidations", invalidations.sum(),
+                "evictedSnapshots", evictedSnapshots.sum(),
+                "maxFanOut", maxFanOut.get(),
+                "fullReloads", fullReloads.sum()
+        );
+    }
+
+    private int apply(AuthorizationChangedEvent event) {
+        UUID id = event.getSubjectId();
+        switch (event.getKind()) {
+            case USER_ROLES:
+                return permissionSnapshotCache.invalidate(id) ? 1 : 0;
+            case ROLE_MEMBERS:
+                return permissionSnapshotCache.invalidateRole(id);
+            case ROLE_PERMISSIONS:
+                roleHierarchyIndex.onRolePermissionsChanged(id);
+                grantConditionCache.evictRole(id, event.getPermissionId());
+                return permissionSnapshotCache.invalidateRole(id);
+            case ROLE_HIERARCHY:
+                // Snapshots hold direct role grants only, so only the index needs updating
+                roleHierarchyIndex.onRoleSaved(id, event.getParentId());
+                return 0;
+            case ROLE_DELETED:
+                roleHierarchyIndex.onRoleDeleted(id);
+                grantConditionCache.evictRole(id, null);
+                return permissionSnapshotCache.invalidateRole(id);
+            case GRANT_RULES:
+                grantConditionCache.evictGrant(id);
+                return 0;
+            case USER_ROLE_EXPIRY:
+                // Grants are unchanged until RoleExpiryScheduler revokes them
+                return 0;
+            default:
+                throw new IllegalStateException("Unhandled event kind: " + event.getKind());
+        }
+    }
+}
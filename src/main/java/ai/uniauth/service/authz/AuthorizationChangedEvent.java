@@ -0,0 +1,65 @@
+package ai.uniauth.service.authz;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.UUID;
+
+/**
+ * Published inside the mutating transaction; {@link AuthorizationCacheInvalidator}
+ * applies it once the transaction has committed.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class AuthorizationChangedEvent {
+
+    public enum Kind {
+        USER_ROLES,
+        ROLE_MEMBERS,
+        ROLE_PERMISSIONS,
+        ROLE_HIERARCHY,
+        ROLE_DELETED,
+        GRANT_RULES,
+        USER_ROLE_EXPIRY
+    }
+
+    private final Kind kind;
+    private final UUID subjectId;
+    private final UUID parentId;
+    private final UUID permissionId;
+
+    public static AuthorizationChangedEvent userRolesChanged(UUID userId) {
+        return new AuthorizationChangedEvent(Kind.USER_ROLES, userId, null, null);
+    }
+
+    public static AuthorizationChangedEvent userRoleExpiryChanged(UUID userRoleId) {
+        return new AuthorizationChangedEvent(Kind.USER_ROLE_EXPIRY, userRoleId, null, null);
+    }
+
+    public static AuthorizationChangedEvent roleMembersChanged(UUID roleId) {
+        return new AuthorizationChangedEvent(Kind.ROLE_MEMBERS, roleId, null, null);
+    }
+
+    public static AuthorizationChangedEvent rolePermissionsChanged(UUID roleId) {
+        return new AuthorizationChangedEvent(Kind.ROLE_PERMISSIONS, roleId, null, null);
+    }
+
+    public static AuthorizationChangedEvent permissionGranted(UUID roleId, UUID permissionId) {
+        return new AuthorizationChangedEvent(Kind.ROLE_PERMISSIONS, roleId, null, permissionId);
+    }
+
+    public static AuthorizationChangedEvent roleHierarchyChanged(UUID roleId, UUID parentId) {
+        return new AuthorizationChangedEvent(Kind.ROLE_HIERARCHY, roleId, parentId, null);
+    }
+
+    public static AuthorizationChangedEvent roleDeleted(UUID roleId) {
+        return new AuthorizationChangedEvent(Kind.ROLE_DELETED, roleId, null, null);
+    }
+
+    public static AuthorizationChangedEvent grantRulesChanged(UUID rolePermissionId) {
+        return new AuthorizationChangedEvent(Kind.GRANT_RULES, rolePermissionId, null, null);
+    }
+}
@@ -0,0 +1,56 @@
+package ai.uniauth.service.authz;
+
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Plain user -> roles -> permission codes graph, as persisted in the snapshot file.
+ */
+@Getter
+public final class AuthorizationGraph {
+
+    private final Map<UUID, Set<UUID>> userRoles;
+    private final Map<UUID, Set<String>> rolePermissions;
+
+    public AuthorizationGraph(Map<UUID, Set<UUID>> userRoles, Map<UUID, Set<String>> rolePermissions) {
+        this.userRoles = userRoles;
+        this.rolePermissions = rolePermissions;
+    }
+
+    public static AuthorizationGraph fromRows(List<Object[]> userRoleRows, List<Object[]> rolePermissionRows) {
+        Map<UUID, Set<UUID>> userRoles = new HashMap<>();
+        Map<UUID, Set<String>> rolePermissions = new HashMap<>();
+        for (Object[] row : userRoleRows) {
+            userRoles.computeIfAbsent((UUID) row[0], id -> new HashSet<>()).add((UUID) row[1]);
+            rolePermissions.computeIfAbsent((UUID) row[1], id -> new HashSet<>());
+        }
+        for (Object[] row : rolePermissionRows) {
+            rolePermissions.computeIfAbsent((UUID) row[0], id -> new HashSet<>()).add((String) row[1]);
+        }
+        return new AuthorizationGraph(userRoles, rolePermissions);
+    }
+
+    public Set<UUID> changedUsers(AuthorizationGraph other) {
+        return changedKeys(userRoles, other.userRoles);
+    }
+
+    public Set<UUID> changedRoles(AuthorizationGraph other) {
+        return changedKeys(rolePermissions, other.rolePermissions);
+    }
+
+    private static <V> Set<UUID> changedKeys(Map<UUID, V> left, Map<UUID, V> right) {
+        Set<UUID> changed = new HashSet<>();
+        left.forEach((key, value) -> {
+            if (!value.equals(right.get(key))) {
+                changed.add(key);
+            }
+        });
+        right.keySet().forEach(key -> {
+            if (!left.containsKey(key)) {
+                changed.add(key);
+            }
+        });
+        return changed;
+    }
+}
@@ -0,0 +1,89 @@
+package ai.uniauth.service.authz;
+
+import ai.uniauth.models.UserRole;
+import ai.uniauth.rep.RolePermissionRep;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Bulk {@code @Modifying} updates and deletes bypass the service layer, so they publish their
+ * {@link AuthorizationChangedEvent}s from here.
+ */
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class AuthorizationRepositoryAspect {
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final RolePermissionRep rolePermissionRep;
+
+    @AfterReturning("execution(int ai.uniauth.rep.UserRoleRep.deleteByUserId*(..)) && args(userId, ..)")
+    public void afterUserRolesDeleted(UUID userId) {
+        eventPublisher.publishEvent(AuthorizationChangedEvent.userRolesChanged(userId));
+    }
+
+    @AfterReturning("execution(int ai.uniauth.rep.UserRoleRep.updateExpiration(..)) && args(userRoleId, ..)")
+    public void afterUserRoleExpiryUpdated(UUID userRoleId) {
+        eventPublisher.publishEvent(AuthorizationChangedEvent.userRoleExpiryChanged(userRoleId));
+    }
+
+    @AfterReturning(pointcut = "execution(* ai.uniauth.rep.UserRoleRep.save*(..))", returning = "saved")
+    public void afterUserRolesSaved(Object saved) {
+        // Temporary grants are scheduled for revocation as soon as they exist, not at the next window load
+        if (saved instanceof UserRole userRole) {
+            publishExpiry(userRole);
+        } else if (saved instanceof Iterable<?> userRoles) {
+            userRoles.forEach(userRole -> publishExpiry((UserRole) userRole));
+        }
+    }
+
+    @AfterReturning("execution(int ai.uniauth.rep.UserRoleRep.deleteByRoleId(..)) && args(roleId)")
+    public void afterRoleMembersDeleted(UUID roleId) {
+        eventPublisher.publishEvent(AuthorizationChangedEvent.roleMembersChanged(roleId));
+    }
+
+    @AfterReturning("execution(int ai.uniauth.rep.RolePermissionRep.deleteByRoleId*(..)) && args(roleId, ..)")
+    public void afterRolePermissionsDeleted(UUID roleId) {
+        eventPublisher.publishEvent(AuthorizationChangedEvent.rolePermissionsChanged(roleId));
+    }
+
+    @AfterReturning("(execution(int ai.uniauth.rep.RolePermissionRep.updateConditions(..)) " +
+            "|| execution(int ai.uniauth.rep.RolePermissionRep.updateScopeFilter(..))) && args(rolePermissionId, ..)")
+    public void afterGrantRulesUpdated(UUID rolePermissionId) {
+        eventPublisher.publishEvent(AuthorizationChangedEvent.grantRulesChanged(rolePermissionId));
+    }
+
+    @Around("execution(int ai.uniauth.rep.RolePermissionRep.updateAccessLevel(..)) && args(rolePermissionId, ..)")
+    public Object aroundAccessLevelUpdated(ProceedingJoinPoint joinPoint, UUID rolePermissionId) throws Throwable {
+        // ALLOW <-> DENY changes the role's effective permissions, not just the grant's rules
+        Optional<UUID> roleId = rolePermissionRep.findRoleIdById(rolePermissionId);
+        Object result = joinPoint.proceed();
+        roleId.ifPresent(id -> eventPublisher.publishEvent(AuthorizationChangedEvent.rolePermissionsChanged(id)));
+        return result;
+    }
+
+    @Around("execution(int ai.uniauth.rep.RolePermissionRep.deleteByPermissionId(..)) && args(permissionId)")
+    public Object aroundPermissionGrantsDeleted(ProceedingJoinPoint joinPoint, UUID permissionId) throws Throwable {
+        // Resolve the affected roles before the rows are gone
+        Set<UUID> roleIds = rolePermissionRep.findRoleIdsByPermissionId(permissionId);
+        Object result = joinPoint.proceed();
+        roleIds.forEach(roleId ->
+                eventPublisher.publishEvent(AuthorizationChangedEvent.rolePermissionsChanged(roleId)));
+        return result;
+    }
+
+    private void publishExpiry(UserRole userRole) {
+        if (userRole.getExpiresAt() != null) {
+            eventPublisher.publishEvent(AuthorizationChangedEvent.userRoleExpiryChanged(userRole.getId()));
+        }
+    }
+}
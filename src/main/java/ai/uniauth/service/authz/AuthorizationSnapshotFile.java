@@ -0,0 +1,328 @@
+package ai.uniauth.service.authz;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Versioned binary snapshot of the {@link AuthorizationGraph} on local disk. On startup
+ * the last file is memory-mapped so cold caches can be filled without touching the
+ * database, until {@link AuthorizationSnapshotReconciler} has reconciled it and calls
+ * {@link #release()}.
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * int magic, int version, long writtenAtMillis, int codeCount, int roleCount, int userCount
+ * codeCount x (short length, UTF-8 bytes)
+ * roleCount x (long msb, long lsb, int permissionCount, permissionCount x int codeIndex)
+ * userCount x (long msb, long lsb, int dataOffset)       sorted by UUID
+ * userCount x (int roleCount, roleCount x int roleIndex) at dataOffset
+ * </pre>
+ * Users stay in the mapping and are binary-searched per lookup; codes and roles are
+ * decoded once when the file is opened.
+ */
+@Slf4j
+@Component
+public class AuthorizationSnapshotFile {
+
+    private static final int MAGIC = 0x55415A53; // "UAZS"
+    private static final int VERSION = 1;
+    private static final int USER_INDEX_ENTRY_BYTES = 20;
+
+    private final PermissionCodeRegistry permissionCodeRegistry;
+    private final Path path;
+    private final boolean enabled;
+
+    private volatile MappedSnapshot mapped;
+
+    // Users and roles changed since the mapped file was written; never served from it
+    private final Set<UUID> changedUsers = ConcurrentHashMap.newKeySet();
+    private final Set<UUID> changedRoles = ConcurrentHashMap.newKeySet();
+
+    public AuthorizationSnapshotFile(PermissionCodeRegistry permissionCodeRegistry,
+                                     @Value("${uni.authz.snapshot-file.path:data/authz-snapshot.bin}") String path,
+                                     @Value("${uni.authz.snapshot-file.enabled:true}") boolean enabled) {
+        this.permissionCodeRegistry = permissionCodeRegistry;
+        this.path = Paths.get(path);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void open() {
+        if (!enabled || !Files.isRegularFile(path)) {
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            mapped = new MappedSnapshot(buffer);
+            log.info("Mapped authorization snapshot {} ({} users, {} roles, written {})",
+                    path, mapped.userCount, mapped.roleIds.length, new Date(mapped.writtenAtMillis));
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring unreadable authorization snapshot {}: {}", path, e.toString());
+        }
+    }
+
+    public boolean isMapped() {
+        return mapped != null;
+    }
+
+    /**
+     * @return the user's snapshot from the mapped file, or null if the file is not mapped,
+     *         does not know the user, or the user may have changed since it was written
+     */
+    public UserPermissionSnapshot lookup(UUID userId) {
+        MappedSnapshot snapshot = mapped;
+        if (snapshot == null || changedUsers.contains(userId)) {
+            return null;
+        }
+        try {
+            return snapshot.lookup(userId);
+        } catch (RuntimeException e) {
+            log.warn("Authorization snapshot {} is corrupt, no longer serving from it", path, e);
+            mapped = null;
+            return null;
+        }
+    }
+
+    public void markUserChanged(UUID userId) {
+        if (mapped != null) {
+            changedUsers.add(userId);
+        }
+    }
+
+    public void markRoleChanged(UUID roleId) {
+        if (mapped != null) {
+            changedRoles.add(roleId);
+        }
+    }
+
+    public void markAllChanged() {
+        release();
+    }
+
+    /**
+     * Stops serving lookups from the mapped file; the mapping is unmapped once collected.
+     */
+    public void release() {
+        mapped = null;
+        changedUsers.clear();
+        changedRoles.clear();
+    }
+
+    /**
+     * Decodes the whole mapped graph, or returns null if nothing is mapped.
+     */
+    public AuthorizationGraph readMappedGraph() {
+        MappedSnapshot snapshot = mapped;
+        return snapshot != null ? snapshot.toGraph() : null;
+    }
+
+    /**
+     * Writes the graph to a temp file and atomically replaces the snapshot with it.
+     */
+    public void write(AuthorizationGraph graph) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temp);
+                 DataOutputStream out = new DataOutputStream(new BufferedOutputStream(file, 1 << 16))) {
+                writeGraph(graph, out);
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(true);
+            }
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void writeGraph(AuthorizationGraph graph, DataOutputStream out) throws IOException {
+        List<String> codes = new ArrayList<>();
+        Map<String, Integer> codeIndex = new HashMap<>();
+        List<UUID> roles = new ArrayList<>(graph.getRolePermissions().keySet());
+        Map<UUID, Integer> roleIndex = new HashMap<>();
+        for (UUID roleId : roles) {
+            roleIndex.put(roleId, roleIndex.size());
+            for (String code : graph.getRolePermissions().get(roleId)) {
+                codeIndex.computeIfAbsent(code, c -> {
+                    codes.add(c);
+                    return codes.size() - 1;
+                });
+            }
+        }
+        List<UUID> users = new ArrayList<>(graph.getUserRoles().keySet());
+        users.sort(AuthorizationSnapshotFile::compareUnsigned);
+
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.writeInt(codes.size());
+        out.writeInt(roles.size());
+        out.writeInt(users.size());
+        for (String code : codes) {
+            byte[] bytes = code.getBytes(StandardCharsets.UTF_8);
+            out.writeShort(bytes.length);
+            out.write(bytes);
+        }
+        for (UUID roleId : roles) {
+            Set<String> permissions = graph.getRolePermissions().get(roleId);
+            out.writeLong(roleId.getMostSignificantBits());
+            out.writeLong(roleId.getLeastSignificantBits());
+            out.writeInt(permissions.size());
+            for (String code : permissions) {
+                out.writeInt(codeIndex.get(code));
+            }
+        }
+        int dataOffset = 0;
+        for (UUID userId : users) {
+            out.writeLong(userId.getMostSignificantBits());
+            out.writeLong(userId.getLeastSignificantBits());
+            out.writeInt(dataOffset);
+            dataOffset += 4 + 4 * graph.getUserRoles().get(userId).size();
+        }
+        for (UUID userId : users) {
+            Set<UUID> userRoles = graph.getUserRoles().get(userId);
+            out.writeInt(userRoles.size());
+            for (UUID roleId : userRoles) {
+                out.writeInt(roleIndex.get(roleId));
+            }
+        }
+    }
+
+    // Binary search needs the same order as the comparison done against the mapping
+    private static int compareUnsigned(UUID a, UUID b) {
+        int cmp = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return cmp != 0 ? cmp : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    }
+
+    private final class MappedSnapshot {
+        private final ByteBuffer buffer;
+        private final long writtenAtMillis;
+        private final UUID[] roleIds;
+        private final PermissionSet[] rolePermissions;
+        private final int userCount;
+        private final int userIndexStart;
+        private final int userDataStart;
+
+        MappedSnapshot(ByteBuffer buffer) {
+            this.buffer = buffer;
+            ByteBuffer in = buffer.duplicate();
+            if (in.getInt() != MAGIC) {
+                throw new IllegalStateException("Not an authorization snapshot");
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IllegalStateException("Unsupported snapshot version " + version);
+            }
+            writtenAtMillis = in.getLong();
+            int codeCount = in.getInt();
+            int roleCount = in.getInt();
+            userCount = in.getInt();
+
+            int[] ordinals = new int[codeCount];
+            for (int i = 0; i < codeCount; i++) {
+                byte[] bytes = new byte[in.getShort() & 0xFFFF];
+                in.get(bytes);
+                ordinals[i] = permissionCodeRegistry.intern(new String(bytes, StandardCharsets.UTF_8));
+            }
+            roleIds = new UUID[roleCount];
+            rolePermissions = new PermissionSet[roleCount];
+            for (int r = 0; r < roleCount; r++) {
+                roleIds[r] = new UUID(in.getLong(), in.getLong());
+                PermissionSet.Builder permissions = PermissionSet.builder();
+                int permissionCount = in.getInt();
+                for (int p = 0; p < permissionCount; p++) {
+                    permissions.add(ordinals[in.getInt()]);
+                }
+                rolePermissions[r] = permissions.build();
+            }
+            userIndexStart = in.position();
+            userDataStart = userIndexStart + userCount * USER_INDEX_ENTRY_BYTES;
+            if (userDataStart > buffer.limit()) {
+                throw new IllegalStateException("Truncated snapshot");
+            }
+        }
+
+        UserPermissionSnapshot lookup(UUID userId) {
+            int entry = find(userId);
+            if (entry < 0) {
+                return null;
+            }
+            int offset = userDataStart + buffer.getInt(userIndexStart + entry * USER_INDEX_ENTRY_BYTES + 16);
+            int roleCount = buffer.getInt(offset);
+            Set<UUID> roles = new HashSet<>(roleCount * 2);
+            PermissionSet permissions = PermissionSet.EMPTY;
+            for (int i = 0; i < roleCount; i++) {
+                int role = buffer.getInt(offset + 4 + 4 * i);
+                if (changedRoles.contains(roleIds[role])) {
+                    return null;
+                }
+                roles.add(roleIds[role]);
+                permissions = permissions.union(rolePermissions[role]);
+            }
+            return new UserPermissionSnapshot(userId, roles, permissions, permissionCodeRegistry);
+        }
+
+        private int find(UUID userId) {
+            long msb = userId.getMostSignificantBits();
+            long lsb = userId.getLeastSignificantBits();
+            int low = 0;
+            int high = userCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int at = userIndexStart + mid * USER_INDEX_ENTRY_BYTES;
+                int cmp = Long.compareUnsigned(buffer.getLong(at), msb);
+                if (cmp == 0) {
+                    cmp = Long.compareUnsigned(buffer.getLong(at + 8), lsb);
+                }
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -1;
+        }
+
+        AuthorizationGraph toGraph() {
+            Map<UUID, Set<String>> permissionsByRole = new HashMap<>();
+            for (int r = 0; r < roleIds.length; r++) {
+                permissionsByRole.put(roleIds[r], permissionCodeRegistry.toCodes(rolePermissions[r]));
+            }
+            Map<UUID, Set<UUID>> rolesByUser = new HashMap<>();
+            for (int u = 0; u < userCount; u++) {
+                int at = userIndexStart + u * USER_INDEX_ENTRY_BYTES;
+                UUID userId = new UUID(buffer.getLong(at), buffer.getLong(at + 8));
+                int offset = userDataStart + buffer.getInt(at + 16);
+                int roleCount = buffer.getInt(offset);
+                Set<UUID> roles = new HashSet<>(roleCount * 2);
+                for (int i = 0; i < roleCount; i++) {
+                    roles.add(roleIds[buffer.getInt(offset + 4 + 4 * i)]);
+                }
+                rolesByUser.put(userId, roles);
+            }
+            return new AuthorizationGraph(rolesByUser, permissionsByRole);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package ai.uniauth.service.authz;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reconciles the mapped {@link AuthorizationSnapshotFile} against the database once the
+ * application is up, evicting any snapshots served from it that have since changed, and
+ * then rewrites the file periodically.
+ */
+@Slf4j
+@Component
+public class AuthorizationSnapshotReconciler {
+
+    private final AuthorizationSnapshotFile snapshotFile;
+    private final PermissionSnapshotLoader loader;
+    private final PermissionSnapshotCache permissionSnapshotCache;
+    private final long writeIntervalMinutes;
+
+    private ScheduledExecutorService executor;
+
+    public AuthorizationSnapshotReconciler(AuthorizationSnapshotFile snapshotFile,
+                                           PermissionSnapshotLoader loader,
+                                           PermissionSnapshotCache permissionSnapshotCache,
+                                           @Value("${uni.authz.snapshot-file.write-interval-minutes:15}") long writeIntervalMinutes) {
+        this.snapshotFile = snapshotFile;
+        this.loader = loader;
+        this.permissionSnapshotCache = permissionSnapshotCache;
+        this.writeIntervalMinutes = writeIntervalMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!snapshotFile.isEnabled()) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "authz-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.execute(this::reconcile);
+        executor.scheduleWithFixedDelay(this::writeSnapshot, writeIntervalMinutes, writeIntervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    private void reconcile() {
+        try {
+            AuthorizationGraph current = loader.loadGraph();
+            AuthorizationGraph mapped = snapshotFile.readMappedGraph();
+            if (mapped != null) {
+                Set<UUID> changedUsers = mapped.changedUsers(current);
+                Set<UUID> changedRoles = mapped.changedRoles(current);
+                changedUsers.forEach(permissionSnapshotCache::invalidate);
+                changedRoles.forEach(permissionSnapshotCache::invalidateRole);
+                log.info("Reconciled authorization snapshot: {} users and {} roles changed since it was written",
+                        changedUsers.size(), changedRoles.size());
+            }
+            snapshotFile.release();
+            write(current);
+        } catch (RuntimeException e) {
+            // Never keep serving a file we could not verify
+            snapshotFile.release();
+            permissionSnapshotCache.invalidateAll();
+            log.warn("Failed to reconcile authorization snapshot", e);
+        }
+    }
+
+    private void writeSnapshot() {
+        try {
+            write(loader.loadGraph());
+        } catch (RuntimeException e) {
+            log.warn("Failed to write authorization snapshot", e);
+        }
+    }
+
+    private void write(AuthorizationGraph graph) {
+        try {
+            snapshotFile.write(graph);
+            log.debug("Wrote authorization snapshot with {} users", graph.getUserRoles().size());
+        } catch (IOException e) {
+            log.warn("Failed to write authorization snapshot", e);
+        }
+    }
+}
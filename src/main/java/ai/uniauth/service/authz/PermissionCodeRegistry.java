@@ -0,0 +1,107 @@
+package ai.uniauth.service.authz;
+
+import ai.uniauth.rep.PermissionRep;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns permission codes into dense int ordinals so effective permissions can be
+ * held as {@link PermissionSet} bitsets. Ordinals are stable for the lifetime of the JVM.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PermissionCodeRegistry {
+
+    public static final int UNKNOWN = -1;
+
+    private final PermissionRep permissionRep;
+
+    private final Map<String, Integer> ordinals = new ConcurrentHashMap<>();
+    private volatile String[] codes = new String[256];
+    private int nextOrdinal;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void preload() {
+        List<String> allCodes = permissionRep.findAllCodes();
+        allCodes.forEach(this::intern);
+        log.info("Interned {} permission codes", allCodes.size());
+    }
+
+    public int ordinalOf(String code) {
+        if (code == null) {
+            return UNKNOWN;
+        }
+        Integer ordinal = ordinals.get(code);
+        return ordinal != null ? ordinal : UNKNOWN;
+    }
+
+    public int intern(String code) {
+        Integer ordinal = ordinals.get(code);
+        if (ordinal != null) {
+            return ordinal;
+        }
+        synchronized (this) {
+            ordinal = ordinals.get(code);
+            if (ordinal != null) {
+                return ordinal;
+            }
+            int assigned = nextOrdinal++;
+            String[] current = codes;
+            if (assigned >= current.length) {
+                current = Arrays.copyOf(current, current.length * 2);
+            }
+            current[assigned] = code;
+            // Publish the array before the mapping so readers never see an unmapped ordinal
+            codes = current;
+            ordinals.put(code, assigned);
+            return assigned;
+        }
+    }
+
+    public String codeOf(int ordinal) {
+        String[] current = codes;
+        return ordinal >= 0 && ordinal < current.length ? current[ordinal] : null;
+    }
+
+    public PermissionSet toSet(Collection<String> permissionCodes) {
+        PermissionSet.Builder builder = PermissionSet.builder();
+        for (String code : permissionCodes) {
+            builder.add(intern(code));
+        }
+        return builder.build();
+    }
+
+    /**
+     * Like {@link #toSet} but without interning, so codes from a request cannot grow the
+     * registry; unknown codes are left out.
+     */
+    public PermissionSet toKnownSet(Collection<String> permissionCodes) {
+        PermissionSet.Builder builder = PermissionSet.builder();
+        for (String code : permissionCodes) {
+            int ordinal = ordinalOf(code);
+            if (ordinal != UNKNOWN) {
+                builder.add(ordinal);
+            }
+        }
+        return builder.build();
+    }
+
+    public Set<String> toCodes(PermissionSet permissions) {
+        Set<String> result = new HashSet<>(permissions.cardinality() * 2);
+        permissions.forEach(ordinal -> result.add(codeOf(ordinal)));
+        return Collections.unmodifiableSet(result);
+    }
+
+    public int size() {
+        return ordinals.size();
+    }
+}
@@ -0,0 +1,79 @@
+package ai.uniauth.service.authz;
+
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Packed result of a batch authorization check. Cell (u, p) lives at bit
+ * {@code u * permissionCodes.size() + p}, row-major by user.
+ */
+@Getter
+public final class PermissionDecisionMatrix {
+
+    private final List<UUID> userIds;
+    private final List<String> permissionCodes;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final long[] bits;
+
+    PermissionDecisionMatrix(List<UUID> userIds, List<String> permissionCodes, long[] bits) {
+        this.userIds = userIds;
+        this.permissionCodes = permissionCodes;
+        this.bits = bits;
+    }
+
+    public boolean isGranted(int userIndex, int permissionIndex) {
+        int bit = userIndex * permissionCodes.size() + permissionIndex;
+        return (bits[bit >>> 6] & (1L << bit)) != 0;
+    }
+
+    public int countGranted() {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    /**
+     * Little-endian bit layout: bit {@code i} is {@code (bytes[i / 8] >> (i % 8)) & 1}.
+     */
+    public byte[] toByteArray() {
+        int cells = userIds.size() * permissionCodes.size();
+        byte[] bytes = new byte[(cells + 7) >>> 3];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) (bits[i >>> 3] >>> ((i & 7) << 3));
+        }
+        return bytes;
+    }
+
+    public static PermissionDecisionMatrix evaluate(List<UUID> userIds, List<String> permissionCodes,
+                                                    Map<UUID, UserPermissionSnapshot> snapshots,
+                                                    PermissionCodeRegistry registry) {
+        int codeCount = permissionCodes.size();
+        int[] ordinals = new int[codeCount];
+        for (int p = 0; p < codeCount; p++) {
+            ordinals[p] = registry.ordinalOf(permissionCodes.get(p));
+        }
+
+        long[] bits = new long[(userIds.size() * codeCount + 63) >>> 6];
+        for (int u = 0; u < userIds.size(); u++) {
+            UserPermissionSnapshot snapshot = snapshots.get(userIds.get(u));
+            if (snapshot == null) {
+                continue;
+            }
+            PermissionSet permissions = snapshot.getPermissions();
+            int rowStart = u * codeCount;
+            for (int p = 0; p < codeCount; p++) {
+                if (permissions.contains(ordinals[p])) {
+                    int bit = rowStart + p;
+                    bits[bit >>> 6] |= 1L << bit;
+                }
+            }
+        }
+        return new PermissionDecisionMatrix(List.copyOf(userIds), List.copyOf(permissionCodes), bits);
+    }
+}
@@ -0,0 +1,147 @@
+package ai.uniauth.service.authz;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Immutable bitset of permission ordinals handed out by {@link PermissionCodeRegistry}.
+ * Set operations work word by word and never allocate.
+ */
+public final class PermissionSet {
+
+    public static final PermissionSet EMPTY = new PermissionSet(new long[0]);
+
+    private final long[] words;
+
+    private PermissionSet(long[] words) {
+        this.words = words;
+    }
+
+    public static PermissionSet of(int... ordinals) {
+        Builder builder = builder();
+        for (int ordinal : ordinals) {
+            builder.add(ordinal);
+        }
+        return builder.build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public boolean contains(int ordinal) {
+        if (ordinal < 0) {
+            return false;
+        }
+        int index = ordinal >>> 6;
+        return index < words.length && (words[index] & (1L << ordinal)) != 0;
+    }
+
+    public boolean containsAll(PermissionSet other) {
+        long[] otherWords = other.words;
+        for (int i = 0; i < otherWords.length; i++) {
+            long mine = i < words.length ? words[i] : 0L;
+            if ((otherWords[i] & ~mine) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public boolean intersects(PermissionSet other) {
+        long[] otherWords = other.words;
+        int length = Math.min(words.length, otherWords.length);
+        for (int i = 0; i < length; i++) {
+            if ((words[i] & otherWords[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public PermissionSet union(PermissionSet other) {
+        if (other.isEmpty()) {
+            return this;
+        }
+        if (isEmpty()) {
+            return other;
+        }
+        long[] longer = words.length >= other.words.length ? words : other.words;
+        long[] shorter = longer == words ? other.words : words;
+        long[] result = Arrays.copyOf(longer, longer.length);
+        for (int i = 0; i < shorter.length; i++) {
+            result[i] |= shorter[i];
+        }
+        return new PermissionSet(result);
+    }
+
+    public int cardinality() {
+        int count = 0;
+        for (long word : words) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < words.length; i++) {
+            long word = words[i];
+            while (word != 0) {
+                int bit = Long.numberOfTrailingZeros(word);
+                action.accept((i << 6) + bit);
+                word &= word - 1;
+            }
+        }
+    }
+
+    long[] words() {
+        return words;
+    }
+
+    static PermissionSet fromWords(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        return length == 0 ? EMPTY : new PermissionSet(Arrays.copyOf(words, length));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return this == o || (o instanceof PermissionSet other && Arrays.equals(words, other.words));
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    public static final class Builder {
+        private long[] words = new long[1];
+
+        public Builder add(int ordinal) {
+            if (ordinal < 0) {
+                throw new IllegalArgumentException("Invalid permission ordinal: " + ordinal);
+            }
+            int index = ordinal >>> 6;
+            if (index >= words.length) {
+                words = Arrays.copyOf(words, Math.max(index + 1, words.length * 2));
+            }
+            words[index] |= 1L << ordinal;
+            return this;
+        }
+
+        public Builder addAll(PermissionSet set) {
+            set.forEach(this::add);
+            return this;
+        }
+
+        public PermissionSet build() {
+            return fromWords(words);
+        }
+    }
+}
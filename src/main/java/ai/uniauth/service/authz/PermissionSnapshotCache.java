@@ -0,0 +1,363 @@
+package ai.uniauth.service.authz;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * Bounded in-process cache of {@link UserPermissionSnapshot}s with TTL and LRU eviction.
+ * Snapshots are partitioned by system code: a system partition only holds the user's
+ * roles and permissions in that system and is created on first use, so memory follows
+ * the systems actually checked on this node. Snapshots without a system code cover all
+ * systems. At most {@code max-system-partitions} system partitions are kept, the least
+ * recently used one being dropped for a new one, so the cache never holds more than
+ * {@code max-size} snapshots per partition times that count plus one. Each partition is split into independently locked segments so concurrent
+ * checks for different users do not contend on a single lock.
+ */
+@Slf4j
+@Component
+public class PermissionSnapshotCache {
+
+    private static final int SEGMENT_COUNT = 16;
+    private static final String ALL_SYSTEMS = "";
+    private static final long TOUCH_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final PermissionSnapshotLoader loader;
+    private final AuthorizationSnapshotFile snapshotFile;
+    private final long ttlNanos;
+    private final int maxSize;
+    private final int maxSystemPartitions;
+    private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+    // Bumped on every invalidation so that loads racing with it are not cached
+    private final AtomicLong invalidationEpoch = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder partitionEvictions = new LongAdder();
+
+    public PermissionSnapshotCache(PermissionSnapshotLoader loader,
+                                   AuthorizationSnapshotFile snapshotFile,
+                                   @Value("${uni.authz.snapshot.max-size:10000}") int maxSize,
+                                   @Value("${uni.authz.snapshot.ttl-seconds:300}") long ttlSeconds,
+                                   @Value("${uni.authz.snapshot.max-system-partitions:8}") int maxSystemPartitions) {
+        this.loader = loader;
+        this.snapshotFile = snapshotFile;
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+        this.maxSize = maxSize;
+        this.maxSystemPartitions = maxSystemPartitions;
+    }
+
+    public UserPermissionSnapshot get(UUID userId) {
+        return get(userId, null);
+    }
+
+    public UserPermissionSnapshot get(UUID userId, String systemCode) {
+        Partition partition = partition(systemCode);
+        Segment segment = partition.segmentFor(userId);
+        long now = System.nanoTime();
+
+        UserPermissionSnapshot snapshot;
+        synchronized (segment) {
+            snapshot = segment.get(userId);
+            if (snapshot != null && snapshot.isExpired(now, ttlNanos)) {
+                segment.remove(userId);
+                snapshot = null;
+            }
+        }
+        if (snapshot != null) {
+            hits.increment();
+            return snapshot;
+        }
+
+        misses.increment();
+        long epoch = invalidationEpoch.get();
+        UserPermissionSnapshot loaded = partition.systemId == null ? snapshotFile.lookup(userId) : null;
+        if (loaded == null) {
+            loaded = loader.load(userId, partition.systemId);
+        }
+        synchronized (segment) {
+            if (invalidationEpoch.get() == epoch) {
+                segment.put(userId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public Map<UUID, UserPermissionSnapshot> getAll(Collection<UUID> userIds) {
+        return getAll(userIds, null);
+    }
+
+    /**
+     * Resolves many users at once; all misses are loaded together in set-based queries.
+     * Unknown users are absent from the result.
+     */
+    public Map<UUID, UserPermissionSnapshot> getAll(Collection<UUID> userIds, String systemCode) {
+        Partition partition = partition(systemCode);
+        Map<UUID, UserPermissionSnapshot> result = new HashMap<>(userIds.size() * 2);
+        List<UUID> missing = new ArrayList<>();
+        long now = System.nanoTime();
+
+        for (UUID userId : userIds) {
+            Segment segment = partition.segmentFor(userId);
+            UserPermissionSnapshot snapshot;
+            synchronized (segment) {
+                snapshot = segment.get(userId);
+                if (snapshot != null && snapshot.isExpired(now, ttlNanos)) {
+                    segment.remove(userId);
+                    snapshot = null;
+                }
+            }
+            if (snapshot != null) {
+                hits.increment();
+                result.put(userId, snapshot);
+            } else {
+                misses.increment();
+                missing.add(userId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        long epoch = invalidationEpoch.get();
+        Map<UUID, UserPermissionSnapshot> loaded = new HashMap<>();
+        if (partition.systemId == null) {
+            missing.removeIf(userId -> {
+                UserPermissionSnapshot snapshot = snapshotFile.lookup(userId);
+                return snapshot != null && loaded.put(userId, snapshot) == null;
+            });
+        }
+        if (!missing.isEmpty()) {
+            loaded.putAll(loader.loadAll(missing, partition.systemId));
+        }
+        partition.putAll(loaded, epoch);
+        result.putAll(loaded);
+        return result;
+    }
+
+    /**
+     * Preloads a system partition with the users holding roles in that system, up to the
+     * partition's capacity.
+     *
+     * @return number of snapshots loaded
+     */
+    public int warmSystem(String systemCode) {
+        Partition partition = partition(requireSystemCode(systemCode));
+        long epoch = invalidationEpoch.get();
+        List<UUID> userIds = loader.findSystemUserIds(partition.systemId, maxSize);
+        Map<UUID, UserPermissionSnapshot> loaded = loader.loadAll(userIds, partition.systemId);
+        partition.putAll(loaded, epoch);
+        log.info("Warmed authorization partition {} with {} users", systemCode, loaded.size());
+        return loaded.size();
+    }
+
+    /**
+     * Drops a system partition entirely; it is rebuilt on the next check for that system.
+     *
+     * @return number of snapshots dropped
+     */
+    public long evictSystem(String systemCode) {
+        Partition partition = partitions.remove(requireSystemCode(systemCode));
+        if (partition == null) {
+            return 0;
+        }
+        invalidationEpoch.incrementAndGet();
+        return partition.size();
+    }
+
+    public boolean invalidate(UUID userId) {
+        invalidationEpoch.incrementAndGet();
+        snapshotFile.markUserChanged(userId);
+        boolean removed = false;
+        for (Partition partition : partitions.values()) {
+            Segment segment = partition.segmentFor(userId);
+            synchronized (segment) {
+                removed |= segment.remove(userId) != null;
+            }
+        }
+        return removed;
+    }
+
+    public int invalidateRole(UUID roleId) {
+        snapshotFile.markRoleChanged(roleId);
+        return invalidateMatching(snapshot -> snapshot.hasRole(roleId));
+    }
+
+    public void invalidateAll() {
+        invalidationEpoch.incrementAndGet();
+        snapshotFile.markAllChanged();
+        for (Partition partition : partitions.values()) {
+            for (Segment segment : partition.segments) {
+                synchronized (segment) {
+                    segment.clear();
+                }
+            }
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Partition partition : partitions.values()) {
+            size += partition.size();
+        }
+        return size;
+    }
+
+    public Map<String, Long> getPartitionSizes() {
+        Map<String, Long> sizes = new TreeMap<>();
+        partitions.forEach((code, partition) -> sizes.put(code.isEmpty() ? "*" : code, partition.size()));
+        return sizes;
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "size", size(),
+                "partitions", (long) partitions.size(),
+                "hits", hits.sum(),
+                "misses", misses.sum(),
+                "evictions", evictions.sum(),
+                "partitionEvictions", partitionEvictions.sum()
+        );
+    }
+
+    private int invalidateMatching(Predicate<UserPermissionSnapshot> predicate) {
+        invalidationEpoch.incrementAndGet();
+        int removed = 0;
+        for (Partition partition : partitions.values()) {
+            for (Segment segment : partition.segments) {
+                synchronized (segment) {
+                    int before = segment.size();
+                    segment.values().removeIf(predicate);
+                    removed += before - segment.size();
+                }
+            }
+        }
+        return removed;
+    }
+
+    private Partition partition(String systemCode) {
+        String key = systemCode == null ? ALL_SYSTEMS : systemCode;
+        Partition partition = partitions.get(key);
+        if (partition != null) {
+            partition.touch();
+            return partition;
+        }
+        // Resolve outside computeIfAbsent; an unknown system must not leave an empty partition behind
+        UUID systemId = key.isEmpty() ? null : loader.resolveSystemId(key);
+        partition = partitions.computeIfAbsent(key, k -> new Partition(systemId));
+        if (systemId != null) {
+            evictIdlePartitions(key);
+        }
+        return partition;
+    }
+
+    private synchronized void evictIdlePartitions(String keep) {
+        while (partitions.size() - (partitions.containsKey(ALL_SYSTEMS) ? 1 : 0) > maxSystemPartitions) {
+            String eldest = null;
+            long eldestUsedNanos = 0;
+            for (Map.Entry<String, Partition> entry : partitions.entrySet()) {
+                String key = entry.getKey();
+                long usedNanos = entry.getValue().lastUsedNanos;
+                if (!key.isEmpty() && !key.equals(keep) && (eldest == null || usedNanos - eldestUsedNanos < 0)) {
+                    eldest = key;
+                    eldestUsedNanos = usedNanos;
+                }
+            }
+            if (eldest == null) {
+                return;
+            }
+            if (partitions.remove(eldest) != null) {
+                invalidationEpoch.incrementAndGet();
+                partitionEvictions.increment();
+                log.debug("Dropped idle authorization partition {}", eldest);
+            }
+        }
+    }
+
+    private static String requireSystemCode(String systemCode) {
+        if (systemCode == null || systemCode.isBlank()) {
+            throw new IllegalArgumentException("System code is required");
+        }
+        return systemCode;
+    }
+
+    private final class Partition {
+        private final UUID systemId;
+        private final Segment[] segments;
+        private volatile long lastUsedNanos;
+
+        Partition(UUID systemId) {
+            this.systemId = systemId;
+            this.lastUsedNanos = System.nanoTime();
+            int segmentCapacity = Math.max(1, (maxSize + SEGMENT_COUNT - 1) / SEGMENT_COUNT);
+            this.segments = new Segment[SEGMENT_COUNT];
+            for (int i = 0; i < SEGMENT_COUNT; i++) {
+                segments[i] = new Segment(segmentCapacity);
+            }
+        }
+
+        // Written at most once a second, so concurrent checks do not contend on it
+        void touch() {
+            long now = System.nanoTime();
+            if (now - lastUsedNanos > TOUCH_INTERVAL_NANOS) {
+                lastUsedNanos = now;
+            }
+        }
+
+        Segment segmentFor(UUID userId) {
+            int h = userId.hashCode();
+            h ^= (h >>> 16);
+            return segments[h & (SEGMENT_COUNT - 1)];
+        }
+
+        void putAll(Map<UUID, UserPermissionSnapshot> snapshots, long epoch) {
+            snapshots.forEach((userId, snapshot) -> {
+                Segment segment = segmentFor(userId);
+                synchronized (segment) {
+                    if (invalidationEpoch.get() == epoch) {
+                        segment.put(userId, snapshot);
+                    }
+                }
+            });
+        }
+
+        long size() {
+            long size = 0;
+            for (Segment segment : segments) {
+                synchronized (segment) {
+                    size += segment.size();
+                }
+            }
+            return size;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<UUID, UserPermissionSnapshot> {
+        private static final long serialVersionUID = 1L;
+
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<UUID, UserPermissionSnapshot> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package ai.uniauth.service.authz;
+
+import ai.uniauth.exception.InvalidRequestException;
+import ai.uniauth.models.Permission;
+import ai.uniauth.models.Role;
+import ai.uniauth.models.RolePermission;
+import ai.uniauth.models.User;
+import ai.uniauth.models.UniSystem;
+import ai.uniauth.rep.RolePermissionRep;
+import ai.uniauth.rep.UniSystemRep;
+import ai.uniauth.rep.UserRep;
+import ai.uniauth.rep.UserRoleRep;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+@Component
+@RequiredArgsConstructor
+public class PermissionSnapshotLoader {
+
+    // Keeps IN lists well under typical driver/optimizer limits
+    private static final int BATCH_SIZE = 500;
+
+    private final UserRep userRep;
+    private final UserRoleRep userRoleRep;
+    private final UniSystemRep uniSystemRep;
+    private final RolePermissionRep rolePermissionRep;
+    private final PermissionCodeRegistry permissionCodeRegistry;
+
+    /**
+     * @param systemId restricts the snapshot to that system's roles and permissions; null for all systems
+     */
+    @Transactional(readOnly = true)
+    public UserPermissionSnapshot load(UUID userId, UUID systemId) {
+        if (systemId != null) {
+            UserPermissionSnapshot snapshot = loadAll(List.of(userId), systemId).get(userId);
+            if (snapshot == null) {
+                throw new IllegalArgumentException("User not found");
+            }
+            return snapshot;
+        }
+        User user = userRep.findByIdWithRolesAndPermissions(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found"));
+
+        Set<UUID> roleIds = user.getRoles().stream()
+                .map(Role::getId)
+                .collect(Collectors.toSet());
+        PermissionSet.Builder permissions = PermissionSet.builder();
+        user.getRoles().stream()
+                .flatMap(role -> role.getPermissions().stream())
+                .filter(grant -> "ALLOW".equals(grant.getAccessLevel()))
+                .map(RolePermission::getPermission)
+                .map(Permission::getCode)
+                .forEach(code -> permissions.add(permissionCodeRegistry.intern(code)));
+
+        return new UserPermissionSnapshot(userId, roleIds, permissions.build(), permissionCodeRegistry);
+    }
+
+    /**
+     * Loads snapshots for many users with one set-based query per batch.
+     * Unknown user IDs are absent from the result.
+     */
+    @Transactional(readOnly = true)
+    public Map<UUID, UserPermissionSnapshot> loadAll(Collection<UUID> userIds, UUID systemId) {
+        Map<UUID, Set<UUID>> roleIds = new HashMap<>();
+        Map<UUID, PermissionSet.Builder> permissions = new HashMap<>();
+
+        List<UUID> ids = List.copyOf(userIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            Set<UUID> batch = new HashSet<>(ids.subList(from, Math.min(from + BATCH_SIZE, ids.size())));
+            List<Object[]> rows = systemId == null
+                    ? userRep.findRolePermissionCodesByUserIds(batch)
+                    : userRep.findRolePermissionCodesByUserIdsAndSystem(batch, systemId);
+            for (Object[] row : rows) {
+                UUID userId = (UUID) row[0];
+                Set<UUID> roles = roleIds.computeIfAbsent(userId, id -> new HashSet<>());
+                PermissionSet.Builder builder = permissions.computeIfAbsent(userId, id -> PermissionSet.builder());
+                if (row[1] != null) {
+                    roles.add((UUID) row[1]);
+                }
+                if (row[2] != null) {
+                    builder.add(permissionCodeRegistry.intern((String) row[2]));
+                }
+            }
+        }
+
+        Map<UUID, UserPermissionSnapshot> snapshots = new HashMap<>();
+        roleIds.forEach((userId, roles) -> snapshots.put(userId,
+                new UserPermissionSnapshot(userId, roles, permissions.get(userId).build(), permissionCodeRegistry)));
+        return snapshots;
+    }
+
+    @Transactional(readOnly = true)
+    public UUID resolveSystemId(String systemCode) {
+        return uniSystemRep.findByCode(systemCode)
+                .map(UniSystem::getId)
+                .orElseThrow(() -> new InvalidRequestException("System not found: " + systemCode));
+    }
+
+    @Transactional(readOnly = true)
+    public List<UUID> findSystemUserIds(UUID systemId, int limit) {
+        return userRoleRep.findUserIdsBySystemId(systemId, PageRequest.of(0, limit));
+    }
+
+    @Transactional(readOnly = true)
+    public AuthorizationGraph loadGraph() {
+        return AuthorizationGraph.fromRows(userRoleRep.findAllUserRoleIds(),
+                rolePermissionRep.findAllRolePermissionCodes());
+    }
+}
@@ -0,0 +1,183 @@
+package ai.uniauth.service.authz;
+
+import ai.uniauth.rep.UserRoleRep;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revokes temporary role grants at their {@code expiresAt} instant. Upcoming expiries are
+ * loaded a window at a time into a {@link TimerWheel}; due grants are deleted in batches,
+ * which publishes the usual after-commit invalidation for each affected user.
+ */
+@Slf4j
+@Component
+public class RoleExpiryScheduler {
+
+    private static final int USERS_PER_TRANSACTION = 200;
+
+    private final UserRoleRep userRoleRep;
+    private final TransactionTemplate transactionTemplate;
+    private final long tickMillis;
+    private final long windowMillis;
+
+    // Guarded by this
+    private final Map<UUID, PendingExpiry> pending = new HashMap<>();
+    private TimerWheel<UUID> wheel;
+
+    private ScheduledExecutorService executor;
+
+    public RoleExpiryScheduler(UserRoleRep userRoleRep,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${uni.authz.role-expiry.tick-millis:1000}") long tickMillis,
+                               @Value("${uni.authz.role-expiry.window-minutes:60}") long windowMinutes) {
+        this.userRoleRep = userRoleRep;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.tickMillis = tickMillis;
+        this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        synchronized (this) {
+            wheel = new TimerWheel<>(tickMillis, System.currentTimeMillis());
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "role-expiry");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Refresh at half the window so every expiry is loaded well before it is due
+        executor.scheduleWithFixedDelay(this::loadWindow, 0, windowMillis / 2, TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true,
+            condition = "#event.kind == T(ai.uniauth.service.authz.AuthorizationChangedEvent$Kind).USER_ROLE_EXPIRY")
+    public void onExpiryChanged(AuthorizationChangedEvent event) {
+        List<Object[]> rows = userRoleRep.findExpiryEntryById(event.getSubjectId());
+        if (rows.isEmpty()) {
+            cancel(event.getSubjectId());
+        } else {
+            schedule(rows.get(0));
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size();
+    }
+
+    private void loadWindow() {
+        try {
+            long horizon;
+            synchronized (this) {
+                horizon = Math.min(System.currentTimeMillis() + windowMillis, wheel.horizonMillis());
+            }
+            // Includes anything already overdue, e.g. grants whose revocation failed earlier
+            List<Object[]> rows = userRoleRep.findExpiryEntriesUntil(toLocalDateTime(horizon));
+            rows.forEach(this::schedule);
+            log.debug("Loaded {} role expiries up to {}", rows.size(), toLocalDateTime(horizon));
+        } catch (RuntimeException e) {
+            log.warn("Failed to load upcoming role expiries", e);
+        }
+    }
+
+    private void tick() {
+        try {
+            List<PendingExpiry> expired = new ArrayList<>();
+            synchronized (this) {
+                for (UUID userRoleId : wheel.advance(System.currentTimeMillis())) {
+                    PendingExpiry expiry = pending.remove(userRoleId);
+                    if (expiry != null) {
+                        expired.add(expiry);
+                    }
+                }
+            }
+            if (!expired.isEmpty()) {
+                revoke(expired);
+            }
+        } catch (RuntimeException e) {
+            // Overdue grants are picked up again by the next window load
+            log.warn("Failed to revoke expired roles", e);
+        }
+    }
+
+    private void revoke(List<PendingExpiry> expired) {
+        Map<UUID, Set<UUID>> rolesByUser = new HashMap<>();
+        for (PendingExpiry expiry : expired) {
+            rolesByUser.computeIfAbsent(expiry.userId, id -> new HashSet<>()).add(expiry.roleId);
+        }
+        // The expiry guard in the delete keeps grants that were extended after we loaded them
+        LocalDateTime cutoff = LocalDateTime.now();
+        List<UUID> userIds = new ArrayList<>(rolesByUser.keySet());
+        for (int from = 0; from < userIds.size(); from += USERS_PER_TRANSACTION) {
+            List<UUID> batch = userIds.subList(from, Math.min(from + USERS_PER_TRANSACTION, userIds.size()));
+            Integer revoked = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (UUID userId : batch) {
+                    count += userRoleRep.deleteByUserIdAndRoleIdsExpiredBefore(userId, rolesByUser.get(userId), cutoff);
+                }
+                return count;
+            });
+            log.info("Revoked {} expired role grants for {} users", revoked, batch.size());
+        }
+    }
+
+    private void schedule(Object[] row) {
+        UUID userRoleId = (UUID) row[0];
+        LocalDateTime expiresAt = (LocalDateTime) row[3];
+        if (expiresAt == null) {
+            cancel(userRoleId);
+            return;
+        }
+        long deadline = expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        synchronized (this) {
+            if (wheel == null) {
+                return;
+            }
+            if (wheel.schedule(userRoleId, deadline)) {
+                pending.put(userRoleId, new PendingExpiry((UUID) row[1], (UUID) row[2]));
+            } else {
+                // Too far out for the wheel; a later window load will pick it up
+                wheel.cancel(userRoleId);
+                pending.remove(userRoleId);
+            }
+        }
+    }
+
+    private synchronized void cancel(UUID userRoleId) {
+        if (wheel != null) {
+            wheel.cancel(userRoleId);
+        }
+        pending.remove(userRoleId);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private record PendingExpiry(UUID userId, UUID roleId) {
+    }
+}
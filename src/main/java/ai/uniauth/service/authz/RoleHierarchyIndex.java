@@ -0,0 +1,222 @@
+package ai.uniauth.service.authz;
+
+import ai.uniauth.rep.RolePermissionRep;
+import ai.uniauth.rep.RoleRep;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory role DAG. Each role's ancestor closure and merged (direct + inherited)
+ * permission set are precomputed, so inherited lookups are a single map read.
+ * Mutations recompute only the changed role and its descendants.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RoleHierarchyIndex {
+
+    private final RoleRep roleRep;
+    private final RolePermissionRep rolePermissionRep;
+    private final PermissionCodeRegistry permissionCodeRegistry;
+
+    // Graph state, guarded by this
+    private final Map<UUID, UUID> parents = new HashMap<>();
+    private final Map<UUID, Set<UUID>> children = new HashMap<>();
+    private final Map<UUID, PermissionSet> directPermissions = new HashMap<>();
+
+    private final Map<UUID, RoleClosure> closures = new ConcurrentHashMap<>();
+    private volatile boolean loaded;
+
+    public Set<String> getInheritedPermissions(UUID roleId) {
+        return closure(roleId).getPermissionCodes();
+    }
+
+    public PermissionSet getInheritedPermissionSet(UUID roleId) {
+        return closure(roleId).getPermissions();
+    }
+
+    public List<UUID> getAncestors(UUID roleId) {
+        return closure(roleId).getAncestors();
+    }
+
+    public boolean isDescendantOf(UUID roleId, UUID ancestorId) {
+        return closure(roleId).getAncestorSet().contains(ancestorId);
+    }
+
+    public void validateParent(UUID roleId, UUID parentId) {
+        if (parentId == null) {
+            return;
+        }
+        if (parentId.equals(roleId) || isDescendantOf(parentId, roleId)) {
+            throw new IllegalArgumentException(
+                    String.format("Role %s cannot inherit from %s: hierarchy cycle", roleId, parentId));
+        }
+    }
+
+    public synchronized void onRoleSaved(UUID roleId, UUID parentId) {
+        if (!loaded) {
+            return;
+        }
+        validateParent(roleId, parentId);
+        setParent(roleId, parentId);
+        directPermissions.computeIfAbsent(roleId, this::loadDirectPermissions);
+        recompute(roleId);
+    }
+
+    public synchronized void onRolePermissionsChanged(UUID roleId) {
+        if (!loaded) {
+            return;
+        }
+        directPermissions.put(roleId, loadDirectPermissions(roleId));
+        recompute(roleId);
+    }
+
+    public synchronized void onRoleDeleted(UUID roleId) {
+        if (!loaded) {
+            return;
+        }
+        Set<UUID> orphans = new HashSet<>(children.getOrDefault(roleId, Set.of()));
+        setParent(roleId, null);
+        for (UUID child : orphans) {
+            setParent(child, null);
+        }
+        children.remove(roleId);
+        parents.remove(roleId);
+        directPermissions.remove(roleId);
+        closures.remove(roleId);
+        orphans.forEach(this::recompute);
+    }
+
+    public synchronized void reload() {
+        loaded = false;
+        ensureLoaded();
+    }
+
+    private RoleClosure closure(UUID roleId) {
+        ensureLoaded();
+        RoleClosure closure = closures.get(roleId);
+        if (closure == null) {
+            throw new IllegalArgumentException("Role not found: " + roleId);
+        }
+        return closure;
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            parents.clear();
+            children.clear();
+            directPermissions.clear();
+            closures.clear();
+
+            for (Object[] row : roleRep.findActiveRoleParentIds()) {
+                UUID roleId = (UUID) row[0];
+                parents.put(roleId, null);
+                directPermissions.put(roleId, PermissionSet.EMPTY);
+                if (row[1] != null) {
+                    setParent(roleId, (UUID) row[1]);
+                }
+            }
+
+            Map<UUID, PermissionSet.Builder> builders = new HashMap<>();
+            for (Object[] row : rolePermissionRep.findAllowedRolePermissionCodes()) {
+                builders.computeIfAbsent((UUID) row[0], id -> PermissionSet.builder())
+                        .add(permissionCodeRegistry.intern((String) row[1]));
+            }
+            builders.forEach((roleId, builder) -> {
+                if (directPermissions.containsKey(roleId)) {
+                    directPermissions.put(roleId, builder.build());
+                }
+            });
+
+            // Parents that point at deleted roles are treated as roots
+            for (UUID roleId : List.copyOf(parents.keySet())) {
+                UUID parentId = parents.get(roleId);
+                if (parentId != null && !parents.containsKey(parentId)) {
+                    setParent(roleId, null);
+                }
+            }
+
+            for (UUID roleId : parents.keySet()) {
+                if (parents.get(roleId) == null) {
+                    recompute(roleId);
+                }
+            }
+            // Anything not reached from a root sits on a cycle; cut it there
+            for (UUID roleId : List.copyOf(parents.keySet())) {
+                if (!closures.containsKey(roleId)) {
+                    log.warn("Role {} is part of a hierarchy cycle, ignoring its parent {}",
+                            roleId, parents.get(roleId));
+                    setParent(roleId, null);
+                    recompute(roleId);
+                }
+            }
+
+            loaded = true;
+            log.info("Role hierarchy index built for {} roles", closures.size());
+        }
+    }
+
+    private void setParent(UUID roleId, UUID parentId) {
+        UUID previous = parents.put(roleId, parentId);
+        if (previous != null) {
+            Set<UUID> siblings = children.get(previous);
+            if (siblings != null) {
+                siblings.remove(roleId);
+            }
+        }
+        if (parentId != null) {
+            children.computeIfAbsent(parentId, id -> new HashSet<>()).add(roleId);
+        }
+    }
+
+    private void recompute(UUID roleId) {
+        Deque<UUID> queue = new ArrayDeque<>();
+        queue.add(roleId);
+        while (!queue.isEmpty()) {
+            UUID current = queue.poll();
+            UUID parentId = parents.get(current);
+            RoleClosure parent = parentId != null ? closures.get(parentId) : null;
+
+            List<UUID> ancestors = new ArrayList<>();
+            PermissionSet permissions = directPermissions.getOrDefault(current, PermissionSet.EMPTY);
+            if (parent != null) {
+                ancestors.add(parentId);
+                ancestors.addAll(parent.getAncestors());
+                permissions = permissions.union(parent.getPermissions());
+            }
+            closures.put(current, new RoleClosure(ancestors, permissions,
+                    permissionCodeRegistry.toCodes(permissions)));
+            queue.addAll(children.getOrDefault(current, Set.of()));
+        }
+    }
+
+    private PermissionSet loadDirectPermissions(UUID roleId) {
+        return permissionCodeRegistry.toSet(rolePermissionRep.findPermissionCodesByRoleId(roleId));
+    }
+
+    @Getter
+    private static final class RoleClosure {
+        private final List<UUID> ancestors;
+        private final Set<UUID> ancestorSet;
+        private final PermissionSet permissions;
+        private final Set<String> permissionCodes;
+
+        RoleClosure(List<UUID> ancestors, PermissionSet permissions, Set<String> permissionCodes) {
+            this.ancestors = List.copyOf(ancestors);
+            this.ancestorSet = Set.copyOf(ancestors);
+            this.permissions = permissions;
+            this.permissionCodes = permissionCodes;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package ai.uniauth.service.authz;
+
+import java.util.*;
+
+/**
+ * Hierarchical timer wheel: {@value #LEVELS} levels of {@value #WHEEL_SIZE} slots each.
+ * Level {@code k} slots span {@code 64^k} ticks; entries cascade down a level as their
+ * slot comes round, so scheduling, cancelling and firing are all O(1) per entry.
+ * Not thread-safe; callers synchronize.
+ */
+final class TimerWheel<K> {
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 3;
+
+    private final long tickMillis;
+    private final Map<K, Long>[][] slots;
+    private final Map<K, Slot> slotOf = new HashMap<>();
+    private final Set<K> due = new LinkedHashSet<>();
+    private long currentTick;
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimerWheel(long tickMillis, long nowMillis) {
+        this.tickMillis = tickMillis;
+        this.currentTick = nowMillis / tickMillis;
+        this.slots = new Map[LEVELS][WHEEL_SIZE];
+        for (Map<K, Long>[] level : slots) {
+            for (int i = 0; i < WHEEL_SIZE; i++) {
+                level[i] = new HashMap<>();
+            }
+        }
+    }
+
+    /**
+     * Latest deadline that fits in the wheel; later ones must be scheduled again once
+     * they come within range.
+     */
+    long horizonMillis() {
+        return (currentTick + (1L << (WHEEL_BITS * LEVELS)) - 1) * tickMillis;
+    }
+
+    /**
+     * @return false if the deadline is beyond {@link #horizonMillis()}
+     */
+    boolean schedule(K key, long deadlineMillis) {
+        long deadlineTick = (deadlineMillis + tickMillis - 1) / tickMillis;
+        if (deadlineTick - currentTick >= 1L << (WHEEL_BITS * LEVELS)) {
+            return false;
+        }
+        cancel(key);
+        place(key, deadlineTick);
+        return true;
+    }
+
+    void cancel(K key) {
+        Slot slot = slotOf.remove(key);
+        if (slot != null) {
+            slots[slot.level][slot.index].remove(key);
+        }
+        due.remove(key);
+    }
+
+    boolean contains(K key) {
+        return slotOf.containsKey(key) || due.contains(key);
+    }
+
+    int size() {
+        return slotOf.size() + due.size();
+    }
+
+    /**
+     * Moves the wheel to {@code nowMillis} and returns every key whose deadline has passed.
+     */
+    List<K> advance(long nowMillis) {
+        long targetTick = nowMillis / tickMillis;
+        List<K> expired = new ArrayList<>(due);
+        due.clear();
+        while (currentTick < targetTick) {
+            currentTick++;
+            cascade();
+            Map<K, Long> slot = slots[0][(int) (currentTick & WHEEL_MASK)];
+            if (!slot.isEmpty()) {
+                slot.keySet().forEach(slotOf::remove);
+                expired.addAll(slot.keySet());
+                slot.clear();
+            }
+        }
+        // Cascading can land entries whose deadline is the current tick
+        expired.addAll(due);
+        due.clear();
+        return expired;
+    }
+
+    private void cascade() {
+        for (int level = 1; level < LEVELS; level++) {
+            if ((currentTick & ((1L << (WHEEL_BITS * level)) - 1)) != 0) {
+                return;
+            }
+            int index = (int) ((currentTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            Map<K, Long> slot = slots[level][index];
+            if (!slot.isEmpty()) {
+                Map<K, Long> entries = new HashMap<>(slot);
+                slot.clear();
+                entries.forEach(this::place);
+            }
+        }
+    }
+
+    private void place(K key, long deadlineTick) {
+        long delta = deadlineTick - currentTick;
+        if (delta <= 0) {
+            slotOf.remove(key);
+            due.add(key);
+            return;
+        }
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= 1L << (WHEEL_BITS * (level + 1))) {
+            level++;
+        }
+        int index = (int) ((deadlineTick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+        slots[level][index].put(key, deadlineTick);
+        slotOf.put(key, new Slot(level, index));
+    }
+
+    private record Slot(int level, int index) {
+    }
+}
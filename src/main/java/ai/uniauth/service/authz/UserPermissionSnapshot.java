@@ -0,0 +1,73 @@
+package ai.uniauth.service.authz;
+
+import lombok.Getter;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Immutable, precomputed view of a user's effective permissions, held as a bitset of
+ * interned permission ordinals.
+ */
+@Getter
+public final class UserPermissionSnapshot {
+
+    private final UUID userId;
+    private final Set<UUID> roleIds;
+    private final PermissionSet permissions;
+    private final long loadedAtNanos;
+
+    @Getter(lombok.AccessLevel.NONE)
+    private final PermissionCodeRegistry registry;
+
+    public UserPermissionSnapshot(UUID userId, Set<UUID> roleIds, PermissionSet permissions,
+                                  PermissionCodeRegistry registry) {
+        this.userId = userId;
+        this.roleIds = Set.copyOf(roleIds);
+        this.permissions = permissions;
+        this.registry = registry;
+        this.loadedAtNanos = System.nanoTime();
+    }
+
+    public Set<String> getPermissionCodes() {
+        return registry.toCodes(permissions);
+    }
+
+    public boolean hasRole(UUID roleId) {
+        return roleIds.contains(roleId);
+    }
+
+    public boolean hasPermission(String permissionCode) {
+        return permissions.contains(registry.ordinalOf(permissionCode));
+    }
+
+    public boolean hasAnyPermission(Collection<String> codes) {
+        return hasAnyPermission(registry.toKnownSet(codes));
+    }
+
+    public boolean hasAllPermissions(Collection<String> codes) {
+        PermissionSet.Builder required = PermissionSet.builder();
+        for (String code : codes) {
+            int ordinal = registry.ordinalOf(code);
+            // A code unknown to the registry cannot be held
+            if (ordinal == PermissionCodeRegistry.UNKNOWN) {
+                return false;
+            }
+            required.add(ordinal);
+        }
+        return hasAllPermissions(required.build());
+    }
+
+    public boolean hasAnyPermission(PermissionSet required) {
+        return permissions.intersects(required);
+    }
+
+    public boolean hasAllPermissions(PermissionSet required) {
+        return permissions.containsAll(required);
+    }
+
+    boolean isExpired(long nowNanos, long ttlNanos) {
+        return nowNanos - loadedAtNanos >= ttlNanos;
+    }
+}
@@ -0,0 +1,26 @@
+package ai.uniauth.service.authz.condition;
+
+import java.util.Map;
+
+/**
+ * Compiled form of a {@code conditions} / {@code scopeFilter} rule, evaluated against
+ * a request context of (possibly nested) attribute maps.
+ */
+@FunctionalInterface
+public interface AttributeCondition {
+
+    AttributeCondition ALWAYS = context -> true;
+    AttributeCondition NEVER = context -> false;
+
+    boolean test(Map<String, Object> context);
+
+    default AttributeCondition and(AttributeCondition other) {
+        if (this == ALWAYS) {
+            return other;
+        }
+        if (other == ALWAYS) {
+            return this;
+        }
+        return context -> test(context) && other.test(context);
+    }
+}
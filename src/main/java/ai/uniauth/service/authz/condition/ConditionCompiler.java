@@ -0,0 +1,335 @@
+package ai.uniauth.service.authz.condition;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Compiles rule JSON into an {@link AttributeCondition} tree. Rules use a small
+ * document-query syntax:
+ * <pre>
+ * {"department": "sales"}                              equality
+ * {"amount": {"$lte": 1000}, "region": {"$in": ["EU", "US"]}}
+ * {"resource.ownerId": {"$eq": {"$ref": "user.id"}}}   compare two context attributes
+ * {"$or": [{...}, {...}]}, {"$and": [...]}, {"$not": {...}}
+ * </pre>
+ * Field operators: $eq, $ne, $gt, $gte, $lt, $lte, $in, $nin, $exists, $regex, $contains.
+ * Paths are dot-separated and resolve through nested maps.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConditionCompiler {
+
+    // $regex runs rule patterns against request data: both are bounded so a pattern that
+    // backtracks badly cannot hold a request thread
+    private static final int MAX_REGEX_LENGTH = 256;
+    private static final int MAX_REGEX_INPUT = 1_024;
+    private static final int MAX_REGEX_STEPS = 100_000;
+
+    private final ObjectMapper objectMapper;
+
+    public AttributeCondition compile(String json) {
+        if (json == null || json.isBlank()) {
+            return AttributeCondition.ALWAYS;
+        }
+        JsonNode root;
+        try {
+            root = objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid condition JSON: " + e.getOriginalMessage());
+        }
+        if (root == null || root.isNull()) {
+            return AttributeCondition.ALWAYS;
+        }
+        return compileDocument(root);
+    }
+
+    private AttributeCondition compileDocument(JsonNode node) {
+        if (!node.isObject()) {
+            throw new IllegalArgumentException("Condition must be a JSON object: " + node);
+        }
+        List<AttributeCondition> parts = new ArrayList<>();
+        node.properties().forEach(field -> parts.add(compileEntry(field.getKey(), field.getValue())));
+        return allOf(parts);
+    }
+
+    private AttributeCondition compileEntry(String key, JsonNode value) {
+        switch (key) {
+            case "$and":
+                return allOf(compileList(key, value));
+            case "$or":
+                return anyOf(compileList(key, value));
+            case "$not":
+                AttributeCondition negated = compileDocument(value);
+                return context -> !negated.test(context);
+            default:
+                if (key.startsWith("$")) {
+                    throw new IllegalArgumentException("Unknown logical operator: " + key);
+                }
+                return compileField(path(key), value);
+        }
+    }
+
+    private List<AttributeCondition> compileList(String operator, JsonNode value) {
+        if (!value.isArray() || value.isEmpty()) {
+            throw new IllegalArgumentException(operator + " expects a non-empty array");
+        }
+        List<AttributeCondition> parts = new ArrayList<>();
+        value.forEach(element -> parts.add(compileDocument(element)));
+        return parts;
+    }
+
+    private AttributeCondition compileField(String[] path, JsonNode value) {
+        if (!value.isObject() || isReference(value)) {
+            Function<Map<String, Object>, Object> expected = operand(value);
+            return context -> equal(resolve(context, path), expected.apply(context));
+        }
+        List<AttributeCondition> parts = new ArrayList<>();
+        value.properties().forEach(op -> parts.add(compileOperator(path, op.getKey(), op.getValue())));
+        return allOf(parts);
+    }
+
+    private AttributeCondition compileOperator(String[] path, String operator, JsonNode operand) {
+        switch (operator) {
+            case "$eq": {
+                Function<Map<String, Object>, Object> expected = operand(operand);
+                return context -> equal(resolve(context, path), expected.apply(context));
+            }
+            case "$ne": {
+                Function<Map<String, Object>, Object> expected = operand(operand);
+                return context -> !equal(resolve(context, path), expected.apply(context));
+            }
+            case "$gt":
+                return comparison(path, operand, cmp -> cmp > 0);
+            case "$gte":
+                return comparison(path, operand, cmp -> cmp >= 0);
+            case "$lt":
+                return comparison(path, operand, cmp -> cmp < 0);
+            case "$lte":
+                return comparison(path, operand, cmp -> cmp <= 0);
+            case "$in": {
+                Set<Object> values = literalSet(operator, operand);
+                return context -> values.contains(normalize(resolve(context, path)));
+            }
+            case "$nin": {
+                Set<Object> values = literalSet(operator, operand);
+                return context -> !values.contains(normalize(resolve(context, path)));
+            }
+            case "$exists": {
+                boolean expected = operand.asBoolean();
+                return context -> (resolve(context, path) != null) == expected;
+            }
+            case "$regex": {
+                if (operand.asText().length() > MAX_REGEX_LENGTH) {
+                    throw new IllegalArgumentException("$regex longer than " + MAX_REGEX_LENGTH + " characters");
+                }
+                Pattern pattern;
+                try {
+                    pattern = Pattern.compile(operand.asText());
+                } catch (PatternSyntaxException e) {
+                    throw new IllegalArgumentException("Invalid $regex: " + e.getDescription());
+                }
+                return context -> {
+                    Object actual = resolve(context, path);
+                    if (actual == null) {
+                        return false;
+                    }
+                    String text = actual.toString();
+                    // Thrown rather than false, so a $not around it cannot turn the limit into a match
+                    if (text.length() > MAX_REGEX_INPUT) {
+                        throw new IllegalStateException("$regex input longer than " + MAX_REGEX_INPUT + " characters");
+                    }
+                    return pattern.matcher(new BoundedCharSequence(text, MAX_REGEX_STEPS)).matches();
+                };
+            }
+            case "$contains": {
+                Function<Map<String, Object>, Object> expected = operand(operand);
+                return context -> {
+                    Object actual = resolve(context, path);
+                    if (!(actual instanceof Collection<?> collection)) {
+                        return false;
+                    }
+                    Object needle = normalize(expected.apply(context));
+                    for (Object element : collection) {
+                        if (Objects.equals(normalize(element), needle)) {
+                            return true;
+                        }
+                    }
+                    return false;
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Unknown field operator: " + operator);
+        }
+    }
+
+    private AttributeCondition comparison(String[] path, JsonNode operand, IntPredicate test) {
+        Function<Map<String, Object>, Object> expected = operand(operand);
+        return context -> {
+            Integer cmp = compare(resolve(context, path), expected.apply(context));
+            return cmp != null && test.test(cmp);
+        };
+    }
+
+    private Function<Map<String, Object>, Object> operand(JsonNode node) {
+        if (isReference(node)) {
+            String[] refPath = path(node.get("$ref").asText());
+            return context -> normalize(resolve(context, refPath));
+        }
+        Object literal = normalize(literal(node));
+        return context -> literal;
+    }
+
+    private Set<Object> literalSet(String operator, JsonNode node) {
+        if (!node.isArray()) {
+            throw new IllegalArgumentException(operator + " expects an array");
+        }
+        Set<Object> values = new HashSet<>();
+        node.forEach(element -> values.add(normalize(literal(element))));
+        return Collections.unmodifiableSet(values);
+    }
+
+    private Object literal(JsonNode node) {
+        if (node.isNull() || node.isMissingNode()) {
+            return null;
+        }
+        if (node.isNumber()) {
+            return node.decimalValue();
+        }
+        if (node.isBoolean()) {
+            return node.booleanValue();
+        }
+        if (node.isTextual()) {
+            return node.textValue();
+        }
+        throw new IllegalArgumentException("Unsupported literal: " + node);
+    }
+
+    private static boolean isReference(JsonNode node) {
+        return node.isObject() && node.size() == 1 && node.has("$ref");
+    }
+
+    private static String[] path(String key) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("Empty attribute path");
+        }
+        return key.split("\\.");
+    }
+
+    private static AttributeCondition allOf(List<AttributeCondition> parts) {
+        AttributeCondition result = AttributeCondition.ALWAYS;
+        for (AttributeCondition part : parts) {
+            result = result.and(part);
+        }
+        return result;
+    }
+
+    private static AttributeCondition anyOf(List<AttributeCondition> parts) {
+        AttributeCondition[] array = parts.toArray(new AttributeCondition[0]);
+        return context -> {
+            for (AttributeCondition part : array) {
+                if (part.test(context)) {
+                    return true;
+                }
+            }
+            return false;
+        };
+    }
+
+    static Object resolve(Map<String, Object> context, String[] path) {
+        Object current = context;
+        for (String segment : path) {
+            if (!(current instanceof Map<?, ?> map)) {
+                return null;
+            }
+            current = map.get(segment);
+        }
+        return current;
+    }
+
+    // Numbers compare by value regardless of boxed type; ids and enums compare as text
+    static Object normalize(Object value) {
+        if (value instanceof BigDecimal) {
+            return ((BigDecimal) value).stripTrailingZeros();
+        }
+        if (value instanceof Number number) {
+            try {
+                return new BigDecimal(number.toString()).stripTrailingZeros();
+            } catch (NumberFormatException e) {
+                return value; // NaN / Infinity
+            }
+        }
+        if (value instanceof UUID || value instanceof Enum<?> || value instanceof CharSequence) {
+            return value.toString();
+        }
+        return value;
+    }
+
+    private static boolean equal(Object actual, Object expected) {
+        return Objects.equals(normalize(actual), expected);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Integer compare(Object actual, Object expected) {
+        Object left = normalize(actual);
+        if (left == null || expected == null || left.getClass() != expected.getClass()
+                || !(left instanceof Comparable)) {
+            return null;
+        }
+        return ((Comparable) left).compareTo(expected);
+    }
+
+    /**
+     * Counts character reads, which bounds the matcher's backtracking: past the budget the
+     * match is abandoned with an {@link IllegalStateException}.
+     */
+    private static final class BoundedCharSequence implements CharSequence {
+        private final String text;
+        private final int offset;
+        private final int length;
+        private final int[] remaining;
+
+        BoundedCharSequence(String text, int steps) {
+            this(text, 0, text.length(), new int[]{steps});
+        }
+
+        private BoundedCharSequence(String text, int offset, int length, int[] remaining) {
+            this.text = text;
+            this.offset = offset;
+            this.length = length;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (--remaining[0] < 0) {
+                throw new IllegalStateException("$regex exceeded " + MAX_REGEX_STEPS + " steps");
+            }
+            return text.charAt(offset + index);
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return new BoundedCharSequence(text, offset + start, end - start, remaining);
+        }
+
+        @Override
+        public String toString() {
+            return text.substring(offset, offset + length);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package ai.uniauth.service.authz.condition;
+
+import ai.uniauth.rep.RolePermissionRep;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * Compiled {@code conditions} and {@code scopeFilter} of every ALLOW grant, grouped by
+ * permission. Each grant's rules are parsed once and reused until the grant changes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class GrantConditionCache {
+
+    private final RolePermissionRep rolePermissionRep;
+    private final ConditionCompiler conditionCompiler;
+
+    private final Map<UUID, List<CompiledGrant>> grantsByPermission = new ConcurrentHashMap<>();
+
+    // Bumped on every eviction so that loads racing with it are not cached
+    private final AtomicLong evictionEpoch = new AtomicLong();
+
+    public List<CompiledGrant> getGrants(UUID permissionId) {
+        List<CompiledGrant> grants = grantsByPermission.get(permissionId);
+        if (grants != null) {
+            return grants;
+        }
+        long epoch = evictionEpoch.get();
+        List<CompiledGrant> loaded = load(permissionId);
+        synchronized (this) {
+            if (evictionEpoch.get() == epoch) {
+                grantsByPermission.put(permissionId, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    public void evictGrant(UUID rolePermissionId) {
+        evictMatching(grant -> grant.getRolePermissionId().equals(rolePermissionId));
+    }
+
+    /**
+     * @param permissionId the permission newly granted to the role, or null when grants were only removed
+     */
+    public void evictRole(UUID roleId, UUID permissionId) {
+        synchronized (this) {
+            evictionEpoch.incrementAndGet();
+            if (permissionId != null) {
+                grantsByPermission.remove(permissionId);
+            }
+            grantsByPermission.values().removeIf(grants ->
+                    grants.stream().anyMatch(grant -> grant.getRoleId().equals(roleId)));
+        }
+    }
+
+    public void evictAll() {
+        synchronized (this) {
+            evictionEpoch.incrementAndGet();
+            grantsByPermission.clear();
+        }
+    }
+
+    private void evictMatching(Predicate<CompiledGrant> predicate) {
+        synchronized (this) {
+            evictionEpoch.incrementAndGet();
+            grantsByPermission.values().removeIf(grants -> grants.stream().anyMatch(predicate));
+        }
+    }
+
+    private List<CompiledGrant> load(UUID permissionId) {
+        List<CompiledGrant> grants = new ArrayList<>();
+        for (Object[] row : rolePermissionRep.findAllowedGrantRulesByPermissionId(permissionId)) {
+            UUID rolePermissionId = (UUID) row[0];
+            grants.add(new CompiledGrant(rolePermissionId, (UUID) row[1],
+                    compile(rolePermissionId, (String) row[2]).and(compile(rolePermissionId, (String) row[3]))));
+        }
+        return List.copyOf(grants);
+    }
+
+    private AttributeCondition compile(UUID rolePermissionId, String rule) {
+        try {
+            return conditionCompiler.compile(rule);
+        } catch (IllegalArgumentException e) {
+            // A rule we cannot read must not widen access
+            log.warn("Ignoring grant {} with invalid rule: {}", rolePermissionId, e.getMessage());
+            return AttributeCondition.NEVER;
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static final class CompiledGrant {
+        private final UUID rolePermissionId;
+        private final UUID roleId;
+        private final AttributeCondition condition;
+
+        public boolean test(Map<String, Object> context) {
+            try {
+                return condition.test(context);
+            } catch (IllegalStateException e) {
+                // An evaluation limit was hit on request data; that must not widen access
+                log.debug("Grant {} not applied: {}", rolePermissionId, e.getMessage());
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ai.uniauth.service.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class LoginRequest {
+    @NotBlank
+    @Size(max = 255)
+    private String usernameOrEmail;
+
+    @NotBlank
+    @Size(max = 128)
+    private String password;
+
+    @Size(max = 10)
+    private String mfaCode;
+}
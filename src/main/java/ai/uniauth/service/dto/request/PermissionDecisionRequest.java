@@ -0,0 +1,22 @@
+package ai.uniauth.service.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+public class PermissionDecisionRequest {
+    @NotEmpty
+    @Size(max = 1000)
+    private List<UUID> userIds;
+
+    @NotEmpty
+    @Size(max = 500)
+    private List<String> permissionCodes;
+
+    // Restricts the check to one system's roles and permissions; all systems when absent
+    private String systemCode;
+}
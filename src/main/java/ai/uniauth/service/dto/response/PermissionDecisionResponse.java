@@ -0,0 +1,20 @@
+package ai.uniauth.service.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Decision for (userIds[u], permissionCodes[p]) is bit {@code u * permissionCodes.size() + p}
+ * of the base64-decoded {@code decisions}, little-endian within each byte.
+ */
+@Data
+@Builder
+public class PermissionDecisionResponse {
+    private List<UUID> userIds;
+    private List<String> permissionCodes;
+    private String decisions;
+    private int grantedCount;
+}
@@ -0,0 +1,17 @@
+package ai.uniauth.service.dto.response;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.UUID;
+
+@Data
+@Builder
+public class SessionTokens {
+    private UUID sessionId;
+    private String accessToken;
+    private Instant accessTokenExpiresAt;
+    private String refreshToken;
+    private Instant refreshTokenExpiresAt;
+}
@@ -1,4 +1,206 @@
 package ai.uniauth.service.impl;
 
+import ai.uniauth.exception.InvalidRequestException;
+import ai.uniauth.models.Permission;
+import ai.uniauth.models.Role;
+import ai.uniauth.models.enums.RiskLevel;
+import ai.uniauth.rep.PermissionRep;
+import ai.uniauth.rep.RolePermissionRep;
+import ai.uniauth.rep.RoleRep;
+import ai.uniauth.service.authz.PermissionCodeRegistry;
+import ai.uniauth.service.authz.PermissionDecisionMatrix;
+import ai.uniauth.service.authz.PermissionSnapshotCache;
+import ai.uniauth.service.authz.RoleHierarchyIndex;
+import ai.uniauth.service.authz.condition.GrantConditionCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.*;
+
+/**
+ * The permission lookups and cached permission checks of
+ * {@link ai.uniauth.service.PermissionService}. It implements the interface once the
+ * remaining operations exist.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
 public class PermissionServiceImpl {
+
+    private static final int MAX_DECISION_CELLS = 100_000;
+
+    private final PermissionRep permissionRep;
+    private final RoleRep roleRep;
+    private final RolePermissionRep rolePermissionRep;
+    private final PermissionSnapshotCache permissionSnapshotCache;
+    private final PermissionCodeRegistry permissionCodeRegistry;
+    private final GrantConditionCache grantConditionCache;
+    private final RoleHierarchyIndex roleHierarchyIndex;
+
+    @Transactional(readOnly = true)
+    public Permission getPermissionById(UUID permissionId) {
+        return permissionRep.findById(permissionId)
+                .orElseThrow(() -> new IllegalArgumentException("Permission not found: " + permissionId));
+    }
+
+    @Transactional(readOnly = true)
+    public Permission getPermissionByCode(String code) {
+        return permissionRep.findByCode(code)
+                .orElseThrow(() -> new IllegalArgumentException("Permission not found: " + code));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getSystemPermissions(UUID systemId) {
+        return permissionRep.findByUniSystemId(systemId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getSystemPermissionsByCode(String systemCode) {
+        return permissionRep.findByUniSystemCode(systemCode);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getPermissionsByCategory(String category) {
+        return permissionRep.findByCategory(category);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getPermissionsByModule(String module) {
+        return permissionRep.findByModule(module);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getPermissionsByRiskLevel(RiskLevel riskLevel) {
+        return permissionRep.findByRiskLevel(riskLevel);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Role> getRolesWithPermission(UUID permissionId) {
+        return roleRep.findByPermissionId(permissionId);
+    }
+
+    @Transactional(readOnly = true)
+    public long countRolesWithPermission(UUID permissionId) {
+        return rolePermissionRep.countByPermissionId(permissionId);
+    }
+
+    public boolean userHasPermission(UUID userId, String permissionCode) {
+        return permissionSnapshotCache.get(userId).hasPermission(permissionCode);
+    }
+
+    public boolean userHasPermission(UUID userId, String systemCode, String permissionCode) {
+        return permissionSnapshotCache.get(userId, systemCode).hasPermission(permissionCode);
+    }
+
+    public boolean userHasAnyPermission(UUID userId, Set<String> permissionCodes) {
+        return permissionSnapshotCache.get(userId).hasAnyPermission(permissionCodes);
+    }
+
+    public boolean userHasAllPermissions(UUID userId, Set<String> permissionCodes) {
+        return permissionSnapshotCache.get(userId).hasAllPermissions(permissionCodes);
+    }
+
+    public Set<String> getUserEffectivePermissions(UUID userId) {
+        return permissionSnapshotCache.get(userId).getPermissionCodes();
+    }
+
+    public PermissionDecisionMatrix checkPermissions(List<UUID> userIds, List<String> permissionCodes, String systemCode) {
+        if ((long) userIds.size() * permissionCodes.size() > MAX_DECISION_CELLS) {
+            throw new InvalidRequestException("Too many permission checks in one request, max " + MAX_DECISION_CELLS);
+        }
+        if (userIds.stream().anyMatch(Objects::isNull) || permissionCodes.stream().anyMatch(Objects::isNull)) {
+            throw new InvalidRequestException("User ids and permission codes must not be null");
+        }
+        return PermissionDecisionMatrix.evaluate(userIds, permissionCodes,
+                permissionSnapshotCache.getAll(new LinkedHashSet<>(userIds), systemCode), permissionCodeRegistry);
+    }
+
+    public int warmSystemPartition(String systemCode) {
+        return permissionSnapshotCache.warmSystem(systemCode);
+    }
+
+    public long evictSystemPartition(String systemCode) {
+        return permissionSnapshotCache.evictSystem(systemCode);
+    }
+
+    @Transactional(readOnly = true)
+    public Page<Permission> searchPermissions(String keyword, Pageable pageable) {
+        return permissionRep.search(keyword, pageable);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getPermissionsByCodes(Set<String> codes) {
+        return permissionRep.findByCodes(codes);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getPermissionsBySystemAndCodes(UUID systemId, Set<String> codes) {
+        return permissionRep.findByUniSystemIdAndCodes(systemId, codes);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isPermissionCodeAvailable(String code) {
+        return !permissionRep.existsByCode(code);
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isPermissionInUse(UUID permissionId) {
+        return rolePermissionRep.countByPermissionId(permissionId) > 0;
+    }
+
+    @Transactional(readOnly = true)
+    public long countPermissions() {
+        return permissionRep.count();
+    }
+
+    @Transactional(readOnly = true)
+    public long countPermissionsBySystem(UUID systemId) {
+        return permissionRep.countByUniSystemId(systemId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getSensitivePermissions() {
+        return permissionRep.findByIsSensitiveTrue();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getUnusedPermissions() {
+        return permissionRep.findUnusedPermissions();
+    }
+
+    @Transactional(readOnly = true)
+    public List<Permission> getPermissionsRequiringApproval() {
+        return permissionRep.findByRequiresApprovalTrue();
+    }
+
+    public boolean validatePermissionScope(UUID permissionId, Map<String, Object> context) {
+        // Only grants of the user's roles count, including roles inherited through the hierarchy
+        Object userId = context != null ? context.get("userId") : null;
+        if (userId == null) {
+            return false;
+        }
+        Set<UUID> userRoleIds;
+        try {
+            UUID id = userId instanceof UUID uuid ? uuid : UUID.fromString(userId.toString());
+            userRoleIds = permissionSnapshotCache.get(id).getRoleIds();
+        } catch (IllegalArgumentException e) {
+            // A malformed or unknown user id holds no grants
+            return false;
+        }
+        Set<UUID> roleIds = new HashSet<>();
+        for (UUID roleId : userRoleIds) {
+            roleIds.add(roleId);
+            roleIds.addAll(roleHierarchyIndex.getAncestors(roleId));
+        }
+        for (GrantConditionCache.CompiledGrant grant : grantConditionCache.getGrants(permissionId)) {
+            if (roleIds.contains(grant.getRoleId()) && grant.test(context)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -9,8 +9,11 @@ import ai.uniauth.rep.RoleRep;
 import ai.uniauth.rep.RolePermissionRep;
 import ai.uniauth.rep.UserRoleRep;
 import ai.uniauth.service.RoleService;
+import ai.uniauth.service.authz.AuthorizationChangedEvent;
+import ai.uniauth.service.authz.RoleHierarchyIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -31,6 +34,8 @@ public class RoleServiceImpl implements RoleService {
     private final RolePermissionRep rolePermissionRep;
     private final PermissionRep permissionRep;
     private final UserRoleRep userRoleRep;
+    private final RoleHierarchyIndex roleHierarchyIndex;
+    private final ApplicationEventPublisher eventPublisher;
 //    private final AuditService auditService;
 
     @Override
@@ -56,10 +61,15 @@ public class RoleServiceImpl implements RoleService {
         if (role.getPriority() == null) {
             role.setPriority(0);
         }
+        if (role.getParent() != null) {
+            role.setParent(getRoleById(role.getParent().getId()));
+        }
 
         role.setCreatedAt(LocalDateTime.now());
 
         Role savedRole = roleRep.save(role);
+        eventPublisher.publishEvent(AuthorizationChangedEvent.roleHierarchyChanged(savedRole.getId(),
+                savedRole.getParent() != null ? savedRole.getParent().getId() : null));
 
         // If this is a default role, update other default roles
         if (role.getIsDefault() && role.getUniSystem() != null) {
@@ -101,6 +111,13 @@ public class RoleServiceImpl implements RoleService {
             role.setPriority(updates.getPriority());
         }
 
+        // Reject parent assignments that would introduce a cycle
+        if (updates.getParent() != null) {
+            UUID parentId = updates.getParent().getId();
+            roleHierarchyIndex.validateParent(roleId, parentId);
+            role.setParent(getRoleById(parentId));
+        }
+
         if (updates.getIsDefault() != null && !updates.getIsDefault().equals(role.getIsDefault())) {
             role.setIsDefault(updates.getIsDefault());
             if (updates.getIsDefault() && role.getUniSystem() != null) {
@@ -112,6 +129,8 @@ public class RoleServiceImpl implements RoleService {
         role.setUpdatedBy(getCurrentUser().getUsername());
 
         Role updatedRole = roleRep.save(role);
+        eventPublisher.publishEvent(AuthorizationChangedEvent.roleHierarchyChanged(roleId,
+                updatedRole.getParent() != null ? updatedRole.getParent().getId() : null));
 
         // Audit log
 //        auditService.logRoleUpdate(getCurrentUserId(), role, updates);
@@ -171,6 +190,7 @@ public class RoleServiceImpl implements RoleService {
         role.setUpdatedBy(getCurrentUser().getUsername());
 
         roleRep.save(role);
+        eventPublisher.publishEvent(AuthorizationChangedEvent.roleDeleted(roleId));
 
         // Audit log
 //        auditService.logRoleDeletion(getCurrentUserId(), role);
@@ -198,6 +218,7 @@ public class RoleServiceImpl implements RoleService {
                 .assignedAt(LocalDateTime.now())
                 .assignedBy(getCurrentUser().getUsername())
                 .build());
+        eventPublisher.publishEvent(AuthorizationChangedEvent.permissionGranted(roleId, permissionId));
 
         // Audit log
 //        auditService.logPermissionAssignment(getCurrentUserId(), role, permissionId, accessLevel);
@@ -213,17 +234,8 @@ public class RoleServiceImpl implements RoleService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Set<String> getRolePermissionsInherited(UUID roleId) {
-        Set<String> allPermissions = new HashSet<>(getRolePermissions(roleId));
-
-        // Get permissions from parent roles
-        Role role = getRoleById(roleId);
-        if (role.getParent() != null) {
-            allPermissions.addAll(getRolePermissionsInherited(role.getParent().getId()));
-        }
-
-        return allPermissions;
+        return roleHierarchyIndex.getInheritedPermissions(roleId);
     }
 
     @Override
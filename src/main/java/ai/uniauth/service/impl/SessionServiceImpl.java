@@ -0,0 +1,224 @@
+package ai.uniauth.service.impl;
+
+import ai.uniauth.models.User;
+import ai.uniauth.models.UserSession;
+import ai.uniauth.rep.UserSessionRep;
+import ai.uniauth.security.JwtTokenProvider;
+import ai.uniauth.security.RecentRefreshIndex;
+import ai.uniauth.security.RefreshTokens;
+import ai.uniauth.security.TokenRevocationList;
+import ai.uniauth.service.SessionService;
+import ai.uniauth.service.dto.response.SessionTokens;
+import ai.uniauth.service.session.ActiveSession;
+import ai.uniauth.service.session.SessionStore;
+import ai.uniauth.service.session.SessionStoreSync;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.LockedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+@Slf4j
+@Service
+public class SessionServiceImpl implements SessionService {
+
+    private final UserSessionRep userSessionRep;
+    private final JwtTokenProvider jwtTokenProvider;
+    private final TokenRevocationList tokenRevocationList;
+    private final RecentRefreshIndex recentRefreshIndex;
+    private final TransactionTemplate transactionTemplate;
+    private final SessionStore sessionStore;
+    private final SessionStoreSync sessionStoreSync;
+    private final long refreshExpirationMs;
+
+    public SessionServiceImpl(UserSessionRep userSessionRep,
+                              JwtTokenProvider jwtTokenProvider,
+                              TokenRevocationList tokenRevocationList,
+                              RecentRefreshIndex recentRefreshIndex,
+                              TransactionTemplate transactionTemplate,
+                              SessionStore sessionStore,
+                              SessionStoreSync sessionStoreSync,
+                              @Value("${jwt.refreshExpirationMs}") long refreshExpirationMs) {
+        this.userSessionRep = userSessionRep;
+        this.jwtTokenProvider = jwtTokenProvider;
+        this.tokenRevocationList = tokenRevocationList;
+        this.recentRefreshIndex = recentRefreshIndex;
+        this.transactionTemplate = transactionTemplate;
+        this.sessionStore = sessionStore;
+        this.sessionStoreSync = sessionStoreSync;
+        this.refreshExpirationMs = refreshExpirationMs;
+    }
+
+    @Override
+    public SessionTokens openSession(User user, String ipAddress, String userAgent) {
+        LocalDateTime now = LocalDateTime.now();
+        String refreshToken = RefreshTokens.generate();
+        Instant refreshExpiresAt = Instant.now().plusMillis(refreshExpirationMs);
+        // Written through: a refresh on any node has to find the session straight away
+        SessionTokens tokens = transactionTemplate.execute(status -> {
+            // The id is assigned on save, so the token can carry it; the row is inserted at commit
+            UserSession session = userSessionRep.save(UserSession.builder()
+                    .user(user)
+                    .ipAddress(ipAddress)
+                    .userAgent(userAgent)
+                    .loginAt(now)
+                    .lastActivityAt(now)
+                    .isActive(true)
+                    .refreshTokenHash(RefreshTokens.hash(refreshToken))
+                    .refreshTokenExpires(toLocalDateTime(refreshExpiresAt))
+                    .build());
+            JwtTokenProvider.IssuedToken accessToken = jwtTokenProvider.issueAccessToken(user.getId(), user.getUsername(), session.getId());
+            session.setTokenHash(accessToken.tokenId());
+            session.setAccessTokenExpires(toLocalDateTime(accessToken.expiresAt()));
+            return tokens(session.getId(), accessToken, refreshToken, refreshExpiresAt);
+        });
+        sessionStore.put(new ActiveSession(tokens.getSessionId(), user.getId(), ipAddress, userAgent, now,
+                toLocalDateTime(tokens.getAccessTokenExpiresAt()), toLocalDateTime(refreshExpiresAt)));
+        return tokens;
+    }
+
+    @Override
+    public SessionTokens refreshSession(String refreshToken) {
+        byte[] hash = RefreshTokens.hash(refreshToken);
+        return recentRefreshIndex.rotateOnce(hash, () -> {
+            // Reuse ends the session, so that transaction has to commit before the refresh is refused
+            SessionTokens tokens = transactionTemplate.execute(status -> rotate(hash));
+            if (tokens == null) {
+                throw new BadCredentialsException("Refresh token reuse detected");
+            }
+            sessionStore.get(tokens.getSessionId()).ifPresent(session -> sessionStore.put(session.withExpiries(
+                    toLocalDateTime(tokens.getAccessTokenExpiresAt()), toLocalDateTime(tokens.getRefreshTokenExpiresAt()))));
+            return tokens;
+        });
+    }
+
+    @Override
+    public void closeSession(JwtTokenProvider.VerifiedToken token, String reason) {
+        if (token.sessionId() != null) {
+            // Marked before it leaves the store, so a concurrent sync cannot put it back
+            sessionStoreSync.markSessionClosed(token.sessionId());
+            tokenRevocationList.revokeSession(token.sessionId(), token.expiresAtMillis());
+            sessionStore.remove(token.sessionId());
+            // Written through: other nodes have to refuse the refresh token straight away
+            transactionTemplate.executeWithoutResult(status ->
+                    userSessionRep.logoutSessions(List.of(token.sessionId()), reason));
+        }
+        tokenRevocationList.revoke(token.tokenId(), token.expiresAtMillis());
+    }
+
+    @Override
+    public int closeAllSessions(UUID userId, String reason) {
+        sessionStoreSync.markUserClosed(userId);
+        tokenRevocationList.revokeUser(userId);
+        sessionStore.removeByUserId(userId);
+        Integer closed = transactionTemplate.execute(status -> userSessionRep.logoutAllUserSessions(userId, reason));
+        log.info("Closed {} sessions of user {}: {}", closed, userId, reason);
+        return closed != null ? closed : 0;
+    }
+
+    @Override
+    public List<ActiveSession> getActiveSessions(UUID userId) {
+        if (sessionStore.isReady()) {
+            return sessionStore.findByUserId(userId);
+        }
+        LocalDateTime now = LocalDateTime.now();
+        return userSessionRep.findByUserIdAndIsActiveTrue(userId).stream()
+                .map(session -> new ActiveSession(session.getId(), userId, session.getIpAddress(), session.getUserAgent(),
+                        session.getLoginAt(), session.getAccessTokenExpires(), session.getRefreshTokenExpires()))
+                .filter(session -> !session.isExpired(now))
+                .toList();
+    }
+
+    @Override
+    public int countActiveSessions(UUID userId) {
+        return sessionStore.isReady()
+                ? sessionStore.countByUserId(userId)
+                : (int) userSessionRep.countActiveSessionsByUserId(userId);
+    }
+
+    /**
+     * Reuse is detected only for the token rotated out last: a session keeps one previous
+     * hash, so a token from two or more rotations back is answered as an invalid token and
+     * leaves the session open.
+     *
+     * @return null if the token was reused and the session has been closed
+     */
+    private SessionTokens rotate(byte[] hash) {
+        LocalDateTime now = LocalDateTime.now();
+        Optional<UserSession> current = userSessionRep.findByRefreshTokenHash(hash);
+        if (current.isPresent()) {
+            UserSession session = current.get();
+            if (!Boolean.TRUE.equals(session.getIsActive())
+                    || session.getRefreshTokenExpires() == null || !session.getRefreshTokenExpires().isAfter(now)) {
+                throw new BadCredentialsException("Refresh token expired");
+            }
+            User user = session.getUser();
+            // Closed on this node by a transaction that has not committed yet
+            if (sessionStoreSync.isClosed(session.getId(), user.getId(), session.getLoginAt())) {
+                throw new BadCredentialsException("Session has been closed");
+            }
+            // The account may have been locked or disabled since login
+            if (Boolean.TRUE.equals(user.getIsLocked())
+                    && (user.getLockedUntil() == null || user.getLockedUntil().isAfter(now))) {
+                throw new LockedException("Account is locked");
+            }
+            if (user.getStatus() != null && !user.getStatus().canLogin()) {
+                throw new DisabledException("Account is not active");
+            }
+            String refreshToken = RefreshTokens.generate();
+            Instant refreshExpiresAt = Instant.now().plusMillis(refreshExpirationMs);
+            JwtTokenProvider.IssuedToken accessToken = jwtTokenProvider.issueAccessToken(user.getId(), user.getUsername(), session.getId());
+            int rotated = userSessionRep.rotateRefreshToken(session.getId(), hash, RefreshTokens.hash(refreshToken),
+                    accessToken.tokenId(), toLocalDateTime(accessToken.expiresAt()), toLocalDateTime(refreshExpiresAt));
+            if (rotated == 0) {
+                // Another node rotated it first
+                throw new BadCredentialsException("Refresh token already used");
+            }
+            return tokens(session.getId(), accessToken, refreshToken, refreshExpiresAt);
+        }
+
+        UserSession previous = userSessionRep.findByPreviousRefreshTokenHash(hash).orElse(null);
+        if (previous == null || !Boolean.TRUE.equals(previous.getIsActive()) || previous.getRefreshTokenExpires() == null) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+        // Rotation time follows from the current token's expiry; inside the grace period this is a racing retry
+        LocalDateTime rotatedAt = previous.getRefreshTokenExpires().minusNanos(refreshExpirationMs * 1_000_000);
+        if (rotatedAt.plusNanos(recentRefreshIndex.getGraceMillis() * 1_000_000).isAfter(now)) {
+            throw new BadCredentialsException("Refresh token already used");
+        }
+        // A rotated-out token came back: whoever holds it is not the legitimate client, so end the session
+        userSessionRep.logoutSession(previous.getId(), "REFRESH_TOKEN_REUSE");
+        sessionStore.remove(previous.getId());
+        tokenRevocationList.revokeSession(previous.getId(), toEpochMillis(previous.getAccessTokenExpires()));
+        log.warn("Refresh token reuse detected, closed session {}", previous.getId());
+        return null;
+    }
+
+    private static SessionTokens tokens(UUID sessionId, JwtTokenProvider.IssuedToken accessToken,
+                                        String refreshToken, Instant refreshExpiresAt) {
+        return SessionTokens.builder()
+                .sessionId(sessionId)
+                .accessToken(accessToken.token())
+                .accessTokenExpiresAt(accessToken.expiresAt())
+                .refreshToken(refreshToken)
+                .refreshTokenExpiresAt(refreshExpiresAt)
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Instant instant) {
+        return LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : System.currentTimeMillis();
+    }
+}
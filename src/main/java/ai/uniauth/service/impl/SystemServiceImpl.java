@@ -1,4 +1,222 @@
 package ai.uniauth.service.impl;
 
+import ai.uniauth.models.*;
+import ai.uniauth.rep.ApiKeyRep;
+import ai.uniauth.rep.UniSystemRep;
+import ai.uniauth.service.system.ApiKeyChangedEvent;
+import ai.uniauth.service.system.ApiKeyIndex;
+import ai.uniauth.service.system.SystemIpRules;
+import ai.uniauth.service.system.SystemIpRulesChangedEvent;
+import ai.uniauth.service.system.SystemRateLimitChangedEvent;
+import ai.uniauth.util.CidrTrie;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * The system lookup, API key, IP rule and rate limit operations of
+ * {@link ai.uniauth.service.SystemService}. It implements the interface once the remaining
+ * operations exist.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
 public class SystemServiceImpl {
+
+    private final UniSystemRep uniSystemRep;
+    private final ApiKeyRep apiKeyRep;
+    private final ApiKeyIndex apiKeyIndex;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Transactional(readOnly = true)
+    public UniSystem getSystemById(UUID systemId) {
+        return uniSystemRep.findById(systemId)
+                .orElseThrow(() -> new IllegalArgumentException("System not found: " + systemId));
+    }
+
+    @Transactional(readOnly = true)
+    public UniSystem getSystemByCode(String code) {
+        return uniSystemRep.findByCode(code)
+                .orElseThrow(() -> new IllegalArgumentException("System not found: " + code));
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isSystemActive(UUID systemId) {
+        return Boolean.TRUE.equals(getSystemById(systemId).getIsActive());
+    }
+
+    @Transactional
+    public UniSystem updateRateLimit(UUID systemId, Integer rateLimit) {
+        if (rateLimit != null && rateLimit < 0) {
+            throw new IllegalArgumentException("Rate limit must not be negative");
+        }
+        UniSystem system = getSystemById(systemId);
+        system.setRateLimit(rateLimit);
+        eventPublisher.publishEvent(new SystemRateLimitChangedEvent(systemId, rateLimit));
+        return uniSystemRep.save(system);
+    }
+
+    @Transactional
+    public ApiKey createApiKey(UUID systemId, String name, String description, Set<String> permissions) {
+        UniSystem system = getSystemById(systemId);
+        return issueApiKey(system, name, description, writePermissions(permissions), null, null);
+    }
+
+    @Transactional(readOnly = true)
+    public List<ApiKey> getSystemApiKeys(UUID systemId) {
+        return apiKeyRep.findByUniSystemId(systemId);
+    }
+
+    @Transactional
+    public void revokeApiKey(UUID apiKeyId) {
+        ApiKey apiKey = getApiKeyById(apiKeyId);
+        apiKeyRep.revoke(apiKeyId, "REVOKED");
+        eventPublisher.publishEvent(new ApiKeyChangedEvent(apiKeyId, apiKey.getKeyPrefix()));
+    }
+
+    @Transactional
+    public ApiKey rotateApiKey(UUID apiKeyId) {
+        ApiKey current = getApiKeyById(apiKeyId);
+        if (apiKeyRep.revoke(apiKeyId, "ROTATED") == 0) {
+            throw new IllegalArgumentException("API key is not active: " + apiKeyId);
+        }
+        eventPublisher.publishEvent(new ApiKeyChangedEvent(apiKeyId, current.getKeyPrefix()));
+        return issueApiKey(current.getUniSystem(), current.getName(), current.getDescription(),
+                current.getPermissions(), current.getExpiresAt(), current.getAllowedIps());
+    }
+
+    public boolean validateApiKey(String apiKey, UUID systemId) {
+        return apiKeyIndex.authenticate(apiKey)
+                .filter(entry -> systemId == null || systemId.equals(entry.systemId()))
+                .isPresent();
+    }
+
+    @Transactional(readOnly = true)
+    public boolean isSystemCodeAvailable(String code) {
+        return code != null && !code.isBlank() && !uniSystemRep.existsByCode(code);
+    }
+
+    @Transactional(readOnly = true)
+    public List<String> getSystemAllowedIps(UUID systemId) {
+        return readIpRules(readConfig(getSystemById(systemId)), SystemIpRules.ALLOWED_IPS);
+    }
+
+    @Transactional
+    public UniSystem updateAllowedIps(UUID systemId, Set<String> ipAddresses) {
+        UniSystem system = getSystemById(systemId);
+        List<String> allowedIps = normalizeIpRules(ipAddresses != null ? ipAddresses : Set.of());
+        return writeIpRules(system, allowedIps, readIpRules(readConfig(system), SystemIpRules.BLOCKED_IPS));
+    }
+
+    @Transactional
+    public UniSystem blockIp(UUID systemId, String ipAddress) {
+        if (ipAddress == null || ipAddress.isBlank()) {
+            throw new IllegalArgumentException("IP address is required");
+        }
+        UniSystem system = getSystemById(systemId);
+        Map<String, Object> config = readConfig(system);
+        List<String> blockedIps = new ArrayList<>(normalizeIpRules(readIpRules(config, SystemIpRules.BLOCKED_IPS)));
+        String rule = CidrTrie.normalize(ipAddress);
+        if (blockedIps.contains(rule)) {
+            return system;
+        }
+        blockedIps.add(rule);
+        return writeIpRules(system, readIpRules(config, SystemIpRules.ALLOWED_IPS), normalizeIpRules(blockedIps));
+    }
+
+    @Transactional
+    public UniSystem unblockIp(UUID systemId, String ipAddress) {
+        if (ipAddress == null || ipAddress.isBlank()) {
+            throw new IllegalArgumentException("IP address is required");
+        }
+        UniSystem system = getSystemById(systemId);
+        Map<String, Object> config = readConfig(system);
+        List<String> blockedIps = new ArrayList<>(normalizeIpRules(readIpRules(config, SystemIpRules.BLOCKED_IPS)));
+        if (!blockedIps.remove(CidrTrie.normalize(ipAddress))) {
+            return system;
+        }
+        return writeIpRules(system, readIpRules(config, SystemIpRules.ALLOWED_IPS), blockedIps);
+    }
+
+    private ApiKey getApiKeyById(UUID apiKeyId) {
+        return apiKeyRep.findById(apiKeyId)
+                .orElseThrow(() -> new IllegalArgumentException("API key not found: " + apiKeyId));
+    }
+
+    private ApiKey issueApiKey(UniSystem system, String name, String description, String permissions,
+                               LocalDateTime expiresAt, String[] allowedIps) {
+        ApiKeyIndex.GeneratedKey generated = ApiKeyIndex.generate();
+        ApiKey apiKey = apiKeyRep.save(ApiKey.builder()
+                .uniSystem(system)
+                .name(name)
+                .description(description)
+                .permissions(permissions)
+                .keyPrefix(generated.prefix())
+                .apiKeyHash(generated.hash())
+                .expiresAt(expiresAt)
+                .allowedIps(allowedIps)
+                .isActive(true)
+                .build());
+        eventPublisher.publishEvent(new ApiKeyChangedEvent(apiKey.getId(), apiKey.getKeyPrefix()));
+        apiKey.setPlainKey(generated.key());
+        log.info("Issued API key {} for system {}", generated.prefix(), system.getCode());
+        return apiKey;
+    }
+
+    private String writePermissions(Set<String> permissions) {
+        if (permissions == null || permissions.isEmpty()) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(new TreeSet<>(permissions));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid API key permissions", e);
+        }
+    }
+
+    private UniSystem writeIpRules(UniSystem system, List<String> allowedIps, List<String> blockedIps) {
+        Map<String, Object> config = readConfig(system);
+        config.put(SystemIpRules.ALLOWED_IPS, allowedIps);
+        config.put(SystemIpRules.BLOCKED_IPS, blockedIps);
+        try {
+            system.setConfig(objectMapper.writeValueAsString(config));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid system configuration", e);
+        }
+        eventPublisher.publishEvent(new SystemIpRulesChangedEvent(system.getId(), allowedIps, blockedIps));
+        return uniSystemRep.save(system);
+    }
+
+    private Map<String, Object> readConfig(UniSystem system) {
+        if (system.getConfig() == null || system.getConfig().isBlank()) {
+            return new LinkedHashMap<>();
+        }
+        try {
+            return objectMapper.readValue(system.getConfig(), new TypeReference<LinkedHashMap<String, Object>>() {
+            });
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Invalid configuration of system: " + system.getCode(), e);
+        }
+    }
+
+    // Invalid rules are refused here, and equal ones collapse into one entry
+    private static List<String> normalizeIpRules(Collection<String> rules) {
+        return rules.stream().map(CidrTrie::normalize).sorted().distinct().toList();
+    }
+
+    private static List<String> readIpRules(Map<String, Object> config, String key) {
+        if (!(config.get(key) instanceof List<?> rules)) {
+            return List.of();
+        }
+        return rules.stream().map(String::valueOf).toList();
+    }
 }
@@ -1,21 +1,39 @@
 package ai.uniauth.service.impl;
 
+import ai.uniauth.exception.InvalidRequestException;
+import ai.uniauth.exception.ServiceOverloadedException;
 import ai.uniauth.models.*;
 import ai.uniauth.models.enums.ActionType;
 import ai.uniauth.models.enums.UserStatus;
 import ai.uniauth.rep.*;
+import ai.uniauth.security.LoginFailureTracker;
+import ai.uniauth.security.OneTimePasswordVerifier;
+import ai.uniauth.security.PasswordHashingExecutor;
+import ai.uniauth.service.SessionService;
 import ai.uniauth.service.UserService;
+import ai.uniauth.service.user.ActivityTimestampCoalescer;
+import ai.uniauth.service.user.LoginAttemptWriter;
+import ai.uniauth.service.user.PasswordResetTokens;
+import ai.uniauth.service.user.UserIdentifierIndex;
+import ai.uniauth.service.authz.AuthorizationChangedEvent;
+import ai.uniauth.service.authz.PermissionSnapshotCache;
 import ai.uniauth.service.mapper.UniSystemMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.DisabledException;
+import org.springframework.security.authentication.InsufficientAuthenticationException;
+import org.springframework.security.authentication.LockedException;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
@@ -33,7 +51,19 @@ public class UserServiceImpl implements UserService {
     private final LoginAttemptRep loginAttemptRep;
     private final PasswordResetRep passwordResetRep;
     private final UniSystemMapper userMapper;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingExecutor passwordHashingExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final UserIdentifierIndex userIdentifierIndex;
+    private final LoginAttemptWriter loginAttemptWriter;
+    private final LoginFailureTracker loginFailureTracker;
+    private final ActivityTimestampCoalescer activityTimestampCoalescer;
+    private final OneTimePasswordVerifier oneTimePasswordVerifier;
+    private final PasswordResetTokens passwordResetTokens;
+    private final SessionService sessionService;
+    private final PermissionSnapshotCache permissionSnapshotCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private volatile String dummyPasswordHash;
 
     @Override
     @Transactional(readOnly = true)
@@ -57,19 +87,25 @@ public class UserServiceImpl implements UserService {
         log.info("Creating new user: {}", user.getUsername());
 
         // Validate unique constraints
-        if (userRep.existsByUsername(user.getUsername())) {
+        Map<String, Boolean> availability = checkAvailability(user.getUsername(), user.getEmail(), null);
+        if (Boolean.FALSE.equals(availability.get("username"))) {
             throw new IllegalArgumentException("Username already exists: " + user.getUsername());
         }
-        if (userRep.existsByEmail(user.getEmail())) {
+        if (Boolean.FALSE.equals(availability.get("email"))) {
             throw new IllegalArgumentException("Email already exists: " + user.getEmail());
         }
 
         // Hash password
         String salt = generateSalt();
-        String hashedPassword = passwordEncoder.encode(user.getPasswordHash() + salt);
+        String hashedPassword = passwordHashingExecutor.encode(user.getPasswordHash() + salt);
         user.setPasswordHash(hashedPassword);
         user.setPasswordSalt(salt);
 
+        // Stored in the form the identifier filter and availability checks compare
+        if (user.getPhoneNumber() != null) {
+            user.setPhoneNumber(UserIdentifierIndex.normalize(UserIdentifierIndex.Type.PHONE_NUMBER, user.getPhoneNumber()));
+        }
+
         // Set default status
         if (user.getStatus() == null) {
             user.setStatus(UserStatus.ACTIVE);
@@ -79,7 +115,16 @@ public class UserServiceImpl implements UserService {
         user.setCreatedAt(LocalDateTime.now());
         user.setLastPasswordChange(LocalDateTime.now());
 
-        User savedUser = userRep.save(user);
+        User savedUser;
+        try {
+            savedUser = userRep.saveAndFlush(user);
+        } catch (DataIntegrityViolationException e) {
+            // Lost a race with a concurrent signup for the same identifier
+            throw new IllegalArgumentException("Username or email already exists");
+        }
+        userIdentifierIndex.add(UserIdentifierIndex.Type.USERNAME, savedUser.getUsername());
+        userIdentifierIndex.add(UserIdentifierIndex.Type.EMAIL, savedUser.getEmail());
+        userIdentifierIndex.add(UserIdentifierIndex.Type.PHONE_NUMBER, savedUser.getPhoneNumber());
 //        // Send welcome notification
 //        if (savedUser.getStatus() == UserStatus.ACTIVE) {
 //            notificationService.sendWelcomeNotification(savedUser.getId());
@@ -101,7 +146,8 @@ public class UserServiceImpl implements UserService {
             user.setFullName(updates.getFullName());
         }
         if (updates.getPhoneNumber() != null) {
-            user.setPhoneNumber(updates.getPhoneNumber());
+            user.setPhoneNumber(UserIdentifierIndex.normalize(UserIdentifierIndex.Type.PHONE_NUMBER, updates.getPhoneNumber()));
+            userIdentifierIndex.add(UserIdentifierIndex.Type.PHONE_NUMBER, user.getPhoneNumber());
         }
         if (updates.getDepartment() != null) {
             user.setDepartment(updates.getDepartment());
@@ -207,6 +253,7 @@ public class UserServiceImpl implements UserService {
         if (action == ActionType.LOCK_USER) {
             user.setIsLocked(true);
             user.setLockedUntil(LocalDateTime.now().plusHours(24)); // 24-hour lock
+            sessionService.closeAllSessions(userId, "LOCKED");
         } else if (action == ActionType.UNLOCK_USER) {
             user.setIsLocked(false);
             user.setLockedUntil(null);
@@ -278,14 +325,13 @@ public class UserServiceImpl implements UserService {
         User user = getUserById(userId);
 
         // Verify old password
-        String hashedOldPassword = passwordEncoder.encode(oldPassword + user.getPasswordSalt());
-        if (!hashedOldPassword.equals(user.getPasswordHash())) {
+        if (!passwordHashingExecutor.matches(oldPassword + user.getPasswordSalt(), user.getPasswordHash())) {
             throw new IllegalArgumentException("Old password is incorrect");
         }
 
         // Update password
         String newSalt = generateSalt();
-        String hashedNewPassword = passwordEncoder.encode(newPassword + newSalt);
+        String hashedNewPassword = passwordHashingExecutor.encode(newPassword + newSalt);
 
         user.setPasswordHash(hashedNewPassword);
         user.setPasswordSalt(newSalt);
@@ -307,7 +353,7 @@ public class UserServiceImpl implements UserService {
     public void resetPassword(UUID userId, String newPassword) {
         User user = getUserById(userId);
         String newSalt = generateSalt();
-        String hashedNewPassword = passwordEncoder.encode(newPassword + newSalt);
+        String hashedNewPassword = passwordHashingExecutor.encode(newPassword + newSalt);
 
         user.setPasswordHash(hashedNewPassword);
         user.setPasswordSalt(newSalt);
@@ -323,52 +369,89 @@ public class UserServiceImpl implements UserService {
     @Override
     public boolean validatePassword(UUID userId, String password) {
         User user = getUserById(userId);
-
-        String hashedOldPassword = passwordEncoder.encode(password + user.getPasswordSalt());
-        if (hashedOldPassword.equals(user.getPasswordHash())) {
-            return true;
-        }
-        return false;
+        return passwordHashingExecutor.matches(password + user.getPasswordSalt(), user.getPasswordHash());
     }
 
     @Override
     public String generatePasswordResetToken(UUID userId) {
-        return "";
+        return passwordResetTokens.issue(getUserById(userId));
     }
 
     @Override
     public boolean validatePasswordResetToken(String token) {
-        return false;
+        return passwordResetTokens.validate(token);
     }
 
     @Override
     public void processPasswordReset(String token, String newPassword) {
-
+        // Checked before hashing so an invalid token costs no hashing time
+        if (!passwordResetTokens.validate(token)) {
+            throw new InvalidRequestException("Invalid or expired password reset token");
+        }
+        String newSalt = generateSalt();
+        String hashedNewPassword = passwordHashingExecutor.encode(newPassword + newSalt);
+        UUID userId = transactionTemplate.execute(status -> {
+            User user = getUserById(passwordResetTokens.consume(token, null));
+            user.setPasswordHash(hashedNewPassword);
+            user.setPasswordSalt(newSalt);
+            user.setLastPasswordChange(LocalDateTime.now());
+            user.setMustChangePassword(false);
+            userRep.save(user);
+            sessionService.closeAllSessions(user.getId(), "PASSWORD_RESET");
+            return user.getId();
+        });
+        log.info("Password reset for user {}", userId);
     }
 
     @Override
-    public void enableMfa(UUID userId, String secret) {
-
+    @Transactional
+    public void enableMfa(UUID userId, String code) {
+        User user = getUserById(userId);
+        if (Boolean.TRUE.equals(user.getMfaEnabled())) {
+            throw new IllegalArgumentException("MFA is already enabled");
+        }
+        if (user.getMfaSecret() == null) {
+            throw new IllegalArgumentException("No pending MFA secret, generate one first");
+        }
+        // Proves the authenticator holds the pending secret before login starts requiring it
+        if (!oneTimePasswordVerifier.verifyTotp(userId, user.getMfaSecret(), code)) {
+            throw new IllegalArgumentException("Invalid MFA code");
+        }
+        userRep.updateMfaStatus(userId, true, user.getMfaSecret());
     }
 
     @Override
+    @Transactional
     public void disableMfa(UUID userId) {
-
+        getUserById(userId);
+        userRep.updateMfaStatus(userId, false, null);
+        oneTimePasswordVerifier.invalidate(userId);
     }
 
     @Override
+    @Transactional
     public boolean verifyMfa(UUID userId, String code) {
-        return false;
+        User user = getUserById(userId);
+        return user.getMfaSecret() != null && oneTimePasswordVerifier.verifyTotp(userId, user.getMfaSecret(), code);
     }
 
     @Override
+    @Transactional
     public String generateMfaSecret(UUID userId) {
-        return "";
+        User user = getUserById(userId);
+        if (Boolean.TRUE.equals(user.getMfaEnabled())) {
+            throw new IllegalArgumentException("MFA is already enabled");
+        }
+        // Stored but not enabled until a code generated from it is confirmed
+        String secret = OneTimePasswordVerifier.generateSecret();
+        userRep.updateMfaStatus(userId, false, secret);
+        return secret;
     }
 
     @Override
+    @Transactional(readOnly = true)
     public boolean isMfaEnabled(UUID userId) {
-        return false;
+        return Boolean.TRUE.equals(getUserById(userId).getMfaEnabled());
     }
 
     @Override
@@ -405,6 +488,7 @@ public class UserServiceImpl implements UserService {
                 .assignedAt(LocalDateTime.now())
                 .assignedBy(assignedBy)
                 .build());
+        eventPublisher.publishEvent(AuthorizationChangedEvent.userRolesChanged(userId));
 
         // Audit log
 //        auditService.logRoleAssignment(getCurrentUserId(), user, roleId);
@@ -436,15 +520,8 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public Set<String> getUserPermissions(UUID userId) {
-        User user = userRep.findByIdWithRolesAndPermissions(userId)
-                .orElseThrow(() -> new IllegalArgumentException("User not found"));
-        return user.getRoles().stream()
-                .flatMap(role -> role.getPermissions().stream())
-                .map(RolePermission::getPermission)
-                .map(Permission::getCode)
-                .collect(Collectors.toSet());
+        return permissionSnapshotCache.get(userId).getPermissionCodes();
     }
 
     @Override
@@ -453,20 +530,18 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    @Transactional(readOnly = true)
     public boolean hasPermission(UUID userId, String permissionCode) {
-        Set<String> permissions = getUserPermissions(userId);
-        return permissions.contains(permissionCode);
+        return permissionSnapshotCache.get(userId).hasPermission(permissionCode);
     }
 
     @Override
     public boolean hasAnyPermission(UUID userId, Set<String> permissionCodes) {
-        return false;
+        return permissionSnapshotCache.get(userId).hasAnyPermission(permissionCodes);
     }
 
     @Override
     public boolean hasAllPermissions(UUID userId, Set<String> permissionCodes) {
-        return false;
+        return permissionSnapshotCache.get(userId).hasAllPermissions(permissionCodes);
     }
 
     @Override
@@ -535,27 +610,107 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public User authenticate(String usernameOrEmail, String password) {
-        return null;
+        return authenticate(usernameOrEmail, password, null, null);
     }
 
     @Override
-    public void recordLoginAttempt(UUID userId, boolean success, String ipAddress, String userAgent) {
+    public User authenticate(String usernameOrEmail, String password, String ipAddress, String userAgent) {
+        return authenticate(usernameOrEmail, password, null, ipAddress, userAgent);
+    }
+
+    @Override
+    public User authenticate(String usernameOrEmail, String password, String mfaCode, String ipAddress, String userAgent) {
+        // Deliberately not transactional: no connection is held while waiting for a hashing slot
+        loginFailureTracker.checkAllowed(ipAddress, usernameOrEmail);
+        Optional<User> found = userRep.findByUsernameOrEmail(usernameOrEmail, usernameOrEmail);
+        if (found.isEmpty()) {
+            // Spend the same hashing time as a real check so unknown usernames cannot be probed
+            passwordHashingExecutor.matches(password, dummyPasswordHash());
+            loginAttemptWriter.record(null, usernameOrEmail, false, "UNKNOWN_USER", ipAddress, userAgent);
+            loginFailureTracker.recordFailure(ipAddress, usernameOrEmail, null);
+            throw new BadCredentialsException("Invalid username or password");
+        }
+
+        User user = found.get();
+        if (Boolean.TRUE.equals(user.getIsLocked())
+                && (user.getLockedUntil() == null || user.getLockedUntil().isAfter(LocalDateTime.now()))) {
+            loginAttemptWriter.record(user.getId(), usernameOrEmail, false, "LOCKED", ipAddress, userAgent);
+            throw new LockedException("Account is locked");
+        }
+        if (user.getStatus() != null && !user.getStatus().canLogin()) {
+            loginAttemptWriter.record(user.getId(), usernameOrEmail, false, "DISABLED", ipAddress, userAgent);
+            throw new DisabledException("Account cannot sign in: " + user.getStatus());
+        }
 
+        if (!passwordHashingExecutor.matches(password + user.getPasswordSalt(), user.getPasswordHash())) {
+            recordFailedSignIn(user, usernameOrEmail, "BAD_CREDENTIALS", ipAddress, userAgent);
+            throw new BadCredentialsException("Invalid username or password");
+        }
+        if (Boolean.TRUE.equals(user.getMfaEnabled())) {
+            if (mfaCode == null || mfaCode.isBlank()) {
+                loginAttemptWriter.record(user.getId(), usernameOrEmail, false, "MFA_REQUIRED", ipAddress, userAgent);
+                throw new InsufficientAuthenticationException("MFA code required");
+            }
+            // The secret came with the user row, so the check itself needs no database access
+            if (!oneTimePasswordVerifier.verifyTotp(user.getId(), user.getMfaSecret(), mfaCode)) {
+                recordFailedSignIn(user, usernameOrEmail, "BAD_MFA_CODE", ipAddress, userAgent);
+                throw new BadCredentialsException("Invalid MFA code");
+            }
+        }
+
+        if (passwordHashingExecutor.needsRehash(user.getPasswordHash())) {
+            rehashPassword(user, password);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        // Only the counter reset is written now; the login timestamp goes through the coalescer
+        if (user.getFailedLoginAttempts() != null && user.getFailedLoginAttempts() > 0) {
+            transactionTemplate.executeWithoutResult(status -> userRep.resetFailedLoginAttempts(user.getId()));
+        }
+        activityTimestampCoalescer.recordLogin(user.getId(), now);
+        user.setLastLoginAt(now);
+        user.setFailedLoginAttempts(0);
+        loginAttemptWriter.record(user.getId(), usernameOrEmail, true, null, ipAddress, userAgent);
+        loginFailureTracker.recordSuccess(usernameOrEmail, user.getId());
+
+        log.info("User {} authenticated", user.getUsername());
+        return user;
+    }
+
+    private void recordFailedSignIn(User user, String usernameOrEmail, String reason, String ipAddress, String userAgent) {
+        transactionTemplate.executeWithoutResult(status -> userRep.incrementFailedLoginAttempts(user.getId()));
+        loginAttemptWriter.record(user.getId(), usernameOrEmail, false, reason, ipAddress, userAgent);
+        LocalDateTime lockedUntil = loginFailureTracker.recordFailure(ipAddress, usernameOrEmail, user.getId());
+        if (lockedUntil != null) {
+            transactionTemplate.executeWithoutResult(status -> {
+                userRep.updateLockStatus(user.getId(), true, lockedUntil);
+                sessionService.closeAllSessions(user.getId(), "LOCKED");
+            });
+            log.warn("User {} locked until {} after repeated failed sign-ins", user.getUsername(), lockedUntil);
+        }
     }
 
     @Override
-    public void updateLastLogin(UUID userId) {
+    public void recordLoginAttempt(UUID userId, boolean success, String ipAddress, String userAgent) {
+        loginAttemptWriter.record(userId, null, success, null, ipAddress, userAgent);
+    }
 
+    @Override
+    public void updateLastLogin(UUID userId) {
+        activityTimestampCoalescer.recordLogin(userId, LocalDateTime.now());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public int getFailedLoginAttempts(UUID userId) {
-        return 0;
+        Integer attempts = getUserById(userId).getFailedLoginAttempts();
+        return attempts != null ? attempts : 0;
     }
 
     @Override
+    @Transactional
     public void resetFailedLoginAttempts(UUID userId) {
-
+        userRep.resetFailedLoginAttempts(userId);
     }
 
     @Override
@@ -595,17 +750,50 @@ public class UserServiceImpl implements UserService {
 
     @Override
     public boolean isUsernameAvailable(String username) {
-        return false;
+        return Boolean.TRUE.equals(checkAvailability(username, null, null).get("username"));
     }
 
     @Override
     public boolean isEmailAvailable(String email) {
-        return false;
+        return Boolean.TRUE.equals(checkAvailability(null, email, null).get("email"));
     }
 
     @Override
     public boolean isPhoneNumberAvailable(String phoneNumber) {
-        return false;
+        return Boolean.TRUE.equals(checkAvailability(null, null, phoneNumber).get("phoneNumber"));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Boolean> checkAvailability(String username, String email, String phoneNumber) {
+        // Identifiers the filters rule out are available without a query; the rest share one
+        String usernameProbe = probe(UserIdentifierIndex.Type.USERNAME, username);
+        String emailProbe = probe(UserIdentifierIndex.Type.EMAIL, email);
+        String phoneProbe = probe(UserIdentifierIndex.Type.PHONE_NUMBER, phoneNumber);
+
+        boolean usernameTaken = false;
+        boolean emailTaken = false;
+        boolean phoneTaken = false;
+        if (usernameProbe != null || emailProbe != null || phoneProbe != null) {
+            for (Object[] row : userRep.findIdentifierMatches(usernameProbe, emailProbe, phoneProbe)) {
+                usernameTaken |= usernameProbe != null && usernameProbe.equalsIgnoreCase((String) row[0]);
+                emailTaken |= emailProbe != null && emailProbe.equalsIgnoreCase((String) row[1]);
+                phoneTaken |= phoneProbe != null && row[2] != null
+                        && phoneProbe.equals(UserIdentifierIndex.normalize(UserIdentifierIndex.Type.PHONE_NUMBER, (String) row[2]));
+            }
+        }
+
+        Map<String, Boolean> availability = new LinkedHashMap<>();
+        if (username != null) {
+            availability.put("username", !usernameTaken);
+        }
+        if (email != null) {
+            availability.put("email", !emailTaken);
+        }
+        if (phoneNumber != null) {
+            availability.put("phoneNumber", !phoneTaken);
+        }
+        return availability;
     }
 
     @Override
@@ -619,6 +807,43 @@ public class UserServiceImpl implements UserService {
     }
 
     // Helper methods
+    private String probe(UserIdentifierIndex.Type type, String value) {
+        if (value == null || value.isBlank() || !userIdentifierIndex.mightExist(type, value)) {
+            return null;
+        }
+        if (type != UserIdentifierIndex.Type.PHONE_NUMBER) {
+            return value.trim();
+        }
+        // Compared with stored numbers in the same form, so "+1 555-0100" matches "+15550100"
+        String normalized = UserIdentifierIndex.normalize(type, value);
+        return normalized.isEmpty() ? null : normalized;
+    }
+
+    // Best effort: a busy hashing pool or a concurrent password change just defers the upgrade
+    private void rehashPassword(User user, String password) {
+        try {
+            String oldHash = user.getPasswordHash();
+            String newHash = passwordHashingExecutor.encode(password + user.getPasswordSalt());
+            Integer updated = transactionTemplate.execute(status ->
+                    userRep.updatePasswordHash(user.getId(), oldHash, newHash));
+            if (updated != null && updated > 0) {
+                user.setPasswordHash(newHash);
+                log.info("Upgraded password hash for user {}", user.getUsername());
+            }
+        } catch (ServiceOverloadedException e) {
+            log.debug("Skipping password rehash for user {}: {}", user.getUsername(), e.getMessage());
+        }
+    }
+
+    private String dummyPasswordHash() {
+        String hash = dummyPasswordHash;
+        if (hash == null) {
+            hash = passwordHashingExecutor.encode(generateSalt());
+            dummyPasswordHash = hash;
+        }
+        return hash;
+    }
+
     private String generateSalt() {
         return UUID.randomUUID().toString().substring(0, 16);
     }
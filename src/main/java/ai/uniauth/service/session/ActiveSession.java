@@ -0,0 +1,24 @@
+package ai.uniauth.service.session;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Immutable view of an active {@code user_sessions} row, as held by a {@link SessionStore}.
+ */
+public record ActiveSession(UUID sessionId,
+                            UUID userId,
+                            String ipAddress,
+                            String userAgent,
+                            LocalDateTime loginAt,
+                            LocalDateTime accessTokenExpires,
+                            LocalDateTime refreshTokenExpires) {
+
+    public boolean isExpired(LocalDateTime now) {
+        return refreshTokenExpires != null && !refreshTokenExpires.isAfter(now);
+    }
+
+    public ActiveSession withExpiries(LocalDateTime accessTokenExpires, LocalDateTime refreshTokenExpires) {
+        return new ActiveSession(sessionId, userId, ipAddress, userAgent, loginAt, accessTokenExpires, refreshTokenExpires);
+    }
+}
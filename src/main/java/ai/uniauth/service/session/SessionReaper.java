@@ -0,0 +1,183 @@
+package ai.uniauth.service.session;
+
+import ai.uniauth.rep.UserSessionRep;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Deactivates sessions whose tokens have all expired and deletes sessions logged out
+ * longer than the retention period. Rows are walked in keyset order, one bounded chunk
+ * per transaction with a pause in between, so a pass never holds locks on more than a
+ * chunk of {@code user_sessions} and sign-ins keep priority over cleanup.
+ */
+@Slf4j
+@Component
+public class SessionReaper {
+
+    private static final String EXPIRED_REASON = "EXPIRED";
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID KEYSET_START_ID = new UUID(0, 0);
+
+    private final UserSessionRep userSessionRep;
+    private final SessionStore sessionStore;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long pauseMillis;
+    private final long intervalMinutes;
+    private final long retentionDays;
+
+    private final LongAdder passes = new LongAdder();
+    private final LongAdder failedPasses = new LongAdder();
+    private final LongAdder chunks = new LongAdder();
+    private final LongAdder deactivated = new LongAdder();
+    private final LongAdder deleted = new LongAdder();
+    private volatile long lastPassMillis;
+
+    private ScheduledExecutorService executor;
+
+    public SessionReaper(UserSessionRep userSessionRep,
+                         SessionStore sessionStore,
+                         TransactionTemplate transactionTemplate,
+                         @Value("${uni.auth.sessions.reaper.chunk-size:500}") int chunkSize,
+                         @Value("${uni.auth.sessions.reaper.pause-millis:100}") long pauseMillis,
+                         @Value("${uni.auth.sessions.reaper.interval-minutes:10}") long intervalMinutes,
+                         @Value("${uni.auth.sessions.reaper.retention-days:30}") long retentionDays) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Session reaper chunk size must be positive");
+        }
+        this.userSessionRep = userSessionRep;
+        this.sessionStore = sessionStore;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.pauseMillis = pauseMillis;
+        this.intervalMinutes = intervalMinutes;
+        this.retentionDays = retentionDays;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::reapQuietly, intervalMinutes, intervalMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            // Interrupts the pause between chunks; the chunk in flight has already committed
+            executor.shutdownNow();
+        }
+    }
+
+    public void reap() {
+        long started = System.currentTimeMillis();
+        LocalDateTime now = LocalDateTime.now();
+        sessionStore.removeExpired(now);
+
+        int expired = inChunks((afterExpires, afterId) -> userSessionRep.findExpiredSessionKeys(
+                now, afterExpires, afterId, PageRequest.of(0, chunkSize)),
+                ids -> {
+                    int updated = transactionTemplate.execute(status -> userSessionRep.logoutSessions(ids, EXPIRED_REASON));
+                    ids.forEach(sessionStore::remove);
+                    deactivated.add(updated);
+                    return updated;
+                });
+        LocalDateTime cutoffDate = now.minusDays(retentionDays);
+        int removed = inChunks((afterLogout, afterId) -> userSessionRep.findLoggedOutSessionKeys(
+                cutoffDate, afterLogout, afterId, PageRequest.of(0, chunkSize)),
+                ids -> {
+                    transactionTemplate.executeWithoutResult(status -> userSessionRep.deleteAllByIdInBatch(ids));
+                    deleted.add(ids.size());
+                    return ids.size();
+                });
+
+        passes.increment();
+        lastPassMillis = System.currentTimeMillis() - started;
+        if (expired > 0 || removed > 0) {
+            log.info("Session reaper deactivated {} and deleted {} sessions in {} ms", expired, removed, lastPassMillis);
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "passes", passes.sum(),
+                "failedPasses", failedPasses.sum(),
+                "chunks", chunks.sum(),
+                "deactivated", deactivated.sum(),
+                "deleted", deleted.sum(),
+                "lastPassMillis", lastPassMillis
+        );
+    }
+
+    /**
+     * Pages through {@code (id, sortKey)} rows from {@code page}, applying {@code action}
+     * to each page's IDs until a short page is read or the thread is interrupted.
+     */
+    private int inChunks(BiFunction<LocalDateTime, UUID, List<Object[]>> page, Function<List<UUID>, Integer> action) {
+        LocalDateTime afterKey = KEYSET_START;
+        UUID afterId = KEYSET_START_ID;
+        int total = 0;
+        while (true) {
+            List<Object[]> rows = page.apply(afterKey, afterId);
+            if (rows.isEmpty()) {
+                return total;
+            }
+            List<UUID> ids = new ArrayList<>(rows.size());
+            for (Object[] row : rows) {
+                ids.add((UUID) row[0]);
+            }
+            total += action.apply(ids);
+            chunks.increment();
+
+            Object[] last = rows.get(rows.size() - 1);
+            afterId = (UUID) last[0];
+            afterKey = (LocalDateTime) last[1];
+            if (rows.size() < chunkSize || !pause()) {
+                return total;
+            }
+        }
+    }
+
+    private boolean pause() {
+        if (pauseMillis <= 0) {
+            return !Thread.currentThread().isInterrupted();
+        }
+        try {
+            Thread.sleep(pauseMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void reapQuietly() {
+        try {
+            reap();
+        } catch (RuntimeException e) {
+            failedPasses.increment();
+            log.warn("Failed to reap sessions", e);
+        }
+    }
+}
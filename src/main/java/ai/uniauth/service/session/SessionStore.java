@@ -0,0 +1,47 @@
+package ai.uniauth.service.session;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Active sessions held in memory for reads at request rate. The database stays the
+ * system of record; an implementation only mirrors it and is repopulated from it on
+ * startup and by periodic syncs.
+ */
+public interface SessionStore {
+
+    void put(ActiveSession session);
+
+    Optional<ActiveSession> get(UUID sessionId);
+
+    /**
+     * @return the user's unexpired sessions, oldest login first
+     */
+    List<ActiveSession> findByUserId(UUID userId);
+
+    int countByUserId(UUID userId);
+
+    Optional<ActiveSession> remove(UUID sessionId);
+
+    List<ActiveSession> removeByUserId(UUID userId);
+
+    /**
+     * Adds sessions read from the database and drops tracked sessions absent from it, except
+     * those that logged in at or after {@code keepSince} and may simply not be committed yet.
+     *
+     * @return number of sessions dropped
+     */
+    int sync(Collection<ActiveSession> persisted, LocalDateTime keepSince);
+
+    int removeExpired(LocalDateTime now);
+
+    long size();
+
+    /**
+     * @return false until the first load from the database has completed
+     */
+    boolean isReady();
+}
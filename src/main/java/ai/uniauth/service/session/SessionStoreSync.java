@@ -0,0 +1,121 @@
+package ai.uniauth.service.session;
+
+import ai.uniauth.rep.UserSessionRep;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps the {@link SessionStore} in step with {@code user_sessions}. The store is loaded
+ * from the database on startup and re-synced periodically to pick up sessions opened,
+ * rotated or closed on other nodes. Closes are written to the database by the caller;
+ * a session marked closed here stays out of the store even if a sync read its row just
+ * before the close committed.
+ */
+@Slf4j
+@Component
+public class SessionStoreSync {
+
+    private final UserSessionRep userSessionRep;
+    private final SessionStore sessionStore;
+    private final long syncMinutes;
+
+    private final Map<UUID, LocalDateTime> recentlyClosedSessions = new ConcurrentHashMap<>();
+    private final Map<UUID, LocalDateTime> recentlyClosedUsers = new ConcurrentHashMap<>();
+
+    private final LongAdder syncs = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    public SessionStoreSync(UserSessionRep userSessionRep,
+                            SessionStore sessionStore,
+                            @Value("${uni.auth.sessions.sync-minutes:5}") long syncMinutes) {
+        this.userSessionRep = userSessionRep;
+        this.sessionStore = sessionStore;
+        this.syncMinutes = syncMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "session-store-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::syncQuietly, 0, syncMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    public void markSessionClosed(UUID sessionId) {
+        recentlyClosedSessions.put(sessionId, LocalDateTime.now());
+    }
+
+    public void markUserClosed(UUID userId) {
+        recentlyClosedUsers.put(userId, LocalDateTime.now());
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "sessions", sessionStore.size(),
+                "recentlyClosed", (long) (recentlyClosedSessions.size() + recentlyClosedUsers.size()),
+                "syncs", syncs.sum()
+        );
+    }
+
+    void sync() {
+        LocalDateTime readAt = LocalDateTime.now();
+        List<ActiveSession> persisted = new ArrayList<>();
+        for (Object[] row : userSessionRep.findActiveSessionRows(readAt)) {
+            ActiveSession session = new ActiveSession((UUID) row[0], (UUID) row[1], (String) row[2], (String) row[3],
+                    (LocalDateTime) row[4], (LocalDateTime) row[5], (LocalDateTime) row[6]);
+            if (!isClosed(session.sessionId(), session.userId(), session.loginAt())) {
+                persisted.add(session);
+            }
+        }
+        // Sessions opened in the last minute may not have been committed when the rows were read
+        int dropped = sessionStore.sync(persisted, readAt.minusMinutes(1));
+        syncs.increment();
+
+        LocalDateTime forgetBefore = readAt.minusMinutes(syncMinutes * 2);
+        recentlyClosedSessions.values().removeIf(closedAt -> closedAt.isBefore(forgetBefore));
+        recentlyClosedUsers.values().removeIf(closedAt -> closedAt.isBefore(forgetBefore));
+        log.debug("Synced session store: {} active, {} dropped", persisted.size(), dropped);
+    }
+
+    /**
+     * @return whether the session was closed on this node recently enough that a sync may
+     *         still have read its row as active
+     */
+    public boolean isClosed(UUID sessionId, UUID userId, LocalDateTime loginAt) {
+        if (recentlyClosedSessions.containsKey(sessionId)) {
+            return true;
+        }
+        LocalDateTime userClosedAt = recentlyClosedUsers.get(userId);
+        return userClosedAt != null && loginAt != null && !loginAt.isAfter(userClosedAt);
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Failed to sync session store", e);
+        }
+    }
+}
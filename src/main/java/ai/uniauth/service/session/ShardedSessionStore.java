@@ -0,0 +1,192 @@
+package ai.uniauth.service.session;
+
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Default {@link SessionStore}: sessions grouped by user in independently locked shards,
+ * so all of a user's sessions are read under one shard lock and different users rarely
+ * contend. A concurrent session-to-user index serves lookups by session ID.
+ */
+@Component
+public class ShardedSessionStore implements SessionStore {
+
+    private static final int SHARD_COUNT = 32;
+
+    private final Map<UUID, UUID> userBySession = new ConcurrentHashMap<>();
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+    private volatile boolean ready;
+
+    public ShardedSessionStore() {
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @Override
+    public void put(ActiveSession session) {
+        Shard shard = shardFor(session.userId());
+        synchronized (shard) {
+            shard.sessions.computeIfAbsent(session.userId(), id -> new LinkedHashMap<>()).put(session.sessionId(), session);
+            userBySession.put(session.sessionId(), session.userId());
+        }
+    }
+
+    @Override
+    public Optional<ActiveSession> get(UUID sessionId) {
+        UUID userId = userBySession.get(sessionId);
+        if (userId == null) {
+            return Optional.empty();
+        }
+        Shard shard = shardFor(userId);
+        synchronized (shard) {
+            Map<UUID, ActiveSession> sessions = shard.sessions.get(userId);
+            return Optional.ofNullable(sessions != null ? sessions.get(sessionId) : null);
+        }
+    }
+
+    @Override
+    public List<ActiveSession> findByUserId(UUID userId) {
+        LocalDateTime now = LocalDateTime.now();
+        Shard shard = shardFor(userId);
+        synchronized (shard) {
+            Map<UUID, ActiveSession> sessions = shard.sessions.get(userId);
+            if (sessions == null) {
+                return List.of();
+            }
+            List<ActiveSession> result = new ArrayList<>(sessions.size());
+            for (ActiveSession session : sessions.values()) {
+                if (!session.isExpired(now)) {
+                    result.add(session);
+                }
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public int countByUserId(UUID userId) {
+        return findByUserId(userId).size();
+    }
+
+    @Override
+    public Optional<ActiveSession> remove(UUID sessionId) {
+        UUID userId = userBySession.get(sessionId);
+        if (userId == null) {
+            return Optional.empty();
+        }
+        Shard shard = shardFor(userId);
+        synchronized (shard) {
+            userBySession.remove(sessionId);
+            Map<UUID, ActiveSession> sessions = shard.sessions.get(userId);
+            if (sessions == null) {
+                return Optional.empty();
+            }
+            ActiveSession removed = sessions.remove(sessionId);
+            if (sessions.isEmpty()) {
+                shard.sessions.remove(userId);
+            }
+            return Optional.ofNullable(removed);
+        }
+    }
+
+    @Override
+    public List<ActiveSession> removeByUserId(UUID userId) {
+        Shard shard = shardFor(userId);
+        synchronized (shard) {
+            Map<UUID, ActiveSession> sessions = shard.sessions.remove(userId);
+            if (sessions == null) {
+                return List.of();
+            }
+            sessions.keySet().forEach(userBySession::remove);
+            return List.copyOf(sessions.values());
+        }
+    }
+
+    @Override
+    public int sync(Collection<ActiveSession> persisted, LocalDateTime keepSince) {
+        Map<UUID, List<ActiveSession>> byUser = new HashMap<>();
+        for (ActiveSession session : persisted) {
+            byUser.computeIfAbsent(session.userId(), id -> new ArrayList<>()).add(session);
+        }
+        int dropped = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<Map.Entry<UUID, Map<UUID, ActiveSession>>> users = shard.sessions.entrySet().iterator();
+                while (users.hasNext()) {
+                    Map.Entry<UUID, Map<UUID, ActiveSession>> entry = users.next();
+                    Set<UUID> present = new HashSet<>();
+                    for (ActiveSession session : byUser.getOrDefault(entry.getKey(), List.of())) {
+                        present.add(session.sessionId());
+                    }
+                    Iterator<ActiveSession> sessions = entry.getValue().values().iterator();
+                    while (sessions.hasNext()) {
+                        ActiveSession session = sessions.next();
+                        boolean recent = session.loginAt() != null && !session.loginAt().isBefore(keepSince);
+                        if (!present.contains(session.sessionId()) && !recent) {
+                            sessions.remove();
+                            userBySession.remove(session.sessionId());
+                            dropped++;
+                        }
+                    }
+                    if (entry.getValue().isEmpty()) {
+                        users.remove();
+                    }
+                }
+            }
+        }
+        // Persisted rows replace what is held: rotations on other nodes update the expiries
+        persisted.forEach(this::put);
+        ready = true;
+        return dropped;
+    }
+
+    @Override
+    public int removeExpired(LocalDateTime now) {
+        int removed = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                Iterator<Map<UUID, ActiveSession>> users = shard.sessions.values().iterator();
+                while (users.hasNext()) {
+                    Map<UUID, ActiveSession> sessions = users.next();
+                    Iterator<ActiveSession> it = sessions.values().iterator();
+                    while (it.hasNext()) {
+                        ActiveSession session = it.next();
+                        if (session.isExpired(now)) {
+                            it.remove();
+                            userBySession.remove(session.sessionId());
+                            removed++;
+                        }
+                    }
+                    if (sessions.isEmpty()) {
+                        users.remove();
+                    }
+                }
+            }
+        }
+        return removed;
+    }
+
+    @Override
+    public long size() {
+        return userBySession.size();
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    private Shard shardFor(UUID userId) {
+        int h = userId.hashCode();
+        h ^= (h >>> 16);
+        return shards[h & (SHARD_COUNT - 1)];
+    }
+
+    private static final class Shard {
+        private final Map<UUID, Map<UUID, ActiveSession>> sessions = new HashMap<>();
+    }
+}
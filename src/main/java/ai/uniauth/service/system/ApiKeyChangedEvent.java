@@ -0,0 +1,10 @@
+package ai.uniauth.service.system;
+
+import java.util.UUID;
+
+/**
+ * Published inside the transaction that creates, revokes or rotates an API key;
+ * {@link ApiKeyIndex} reloads the key once the transaction has committed.
+ */
+public record ApiKeyChangedEvent(UUID apiKeyId, String keyPrefix) {
+}
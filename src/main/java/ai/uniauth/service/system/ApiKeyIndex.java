@@ -0,0 +1,246 @@
+package ai.uniauth.service.system;
+
+import ai.uniauth.rep.ApiKeyRep;
+import ai.uniauth.service.user.ActivityTimestampCoalescer;
+import ai.uniauth.util.Base32;
+import ai.uniauth.util.CidrTrie;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Usable API keys by their public prefix. A key reads {@code uak_<prefix>.<secret>}; the
+ * prefix selects at most one entry and only that entry's SHA-256 is compared, in
+ * constant time, so validation needs neither the database nor a scan. Keys changed on
+ * this node are reloaded after commit; the whole index is reloaded periodically to pick
+ * up changes made elsewhere.
+ */
+@Slf4j
+@Component
+public class ApiKeyIndex {
+
+    private static final String KEY_MARKER = "uak_";
+    private static final int PREFIX_BYTES = 10;
+    private static final int SECRET_BYTES = 32;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final ApiKeyRep apiKeyRep;
+    private final ActivityTimestampCoalescer activityTimestampCoalescer;
+    private final ObjectMapper objectMapper;
+    private final long reloadMinutes;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Prefixes changed on this node, so a reload that read them earlier does not undo the change
+    private final Map<String, Long> changedAt = new ConcurrentHashMap<>();
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    public ApiKeyIndex(ApiKeyRep apiKeyRep,
+                       ActivityTimestampCoalescer activityTimestampCoalescer,
+                       ObjectMapper objectMapper,
+                       @Value("${uni.systems.api-keys.reload-minutes:5}") long reloadMinutes) {
+        this.apiKeyRep = apiKeyRep;
+        this.activityTimestampCoalescer = activityTimestampCoalescer;
+        this.objectMapper = objectMapper;
+        this.reloadMinutes = reloadMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "api-key-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::reloadQuietly, 0, reloadMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return a fresh key; its prefix and hash are what gets stored
+     */
+    public static GeneratedKey generate() {
+        byte[] prefixBytes = new byte[PREFIX_BYTES];
+        byte[] secretBytes = new byte[SECRET_BYTES];
+        RANDOM.nextBytes(prefixBytes);
+        RANDOM.nextBytes(secretBytes);
+        String prefix = Base32.encode(prefixBytes).toLowerCase(Locale.ROOT);
+        String key = KEY_MARKER + prefix + "." + Base64.getUrlEncoder().withoutPadding().encodeToString(secretBytes);
+        return new GeneratedKey(key, prefix, HexFormat.of().formatHex(sha256(key)));
+    }
+
+    public Optional<Entry> authenticate(String apiKey) {
+        String prefix = prefixOf(apiKey);
+        Entry entry = prefix != null ? entries.get(prefix) : null;
+        // The hash is computed even without a candidate so unknown prefixes take as long
+        byte[] hash = sha256(apiKey != null ? apiKey : "");
+        if (entry == null || entry.expiresAtMillis() <= System.currentTimeMillis()
+                || !MessageDigest.isEqual(hash, entry.keyHash())) {
+            rejected.increment();
+            return Optional.empty();
+        }
+        accepted.increment();
+        activityTimestampCoalescer.recordApiKeyUse(entry.apiKeyId(), LocalDateTime.now());
+        return Optional.of(entry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onApiKeyChanged(ApiKeyChangedEvent event) {
+        changedAt.put(event.keyPrefix(), System.currentTimeMillis());
+        List<Object[]> rows = apiKeyRep.findIndexRowById(event.apiKeyId(), LocalDateTime.now());
+        Entry entry = rows.isEmpty() ? null : toEntry(rows.get(0));
+        if (entry == null) {
+            entries.remove(event.keyPrefix());
+        } else {
+            entries.put(event.keyPrefix(), entry);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSystemRateLimitChanged(SystemRateLimitChangedEvent event) {
+        long now = System.currentTimeMillis();
+        entries.replaceAll((prefix, entry) -> {
+            if (!entry.systemId().equals(event.systemId())) {
+                return entry;
+            }
+            changedAt.put(prefix, now);
+            return entry.withSystemRateLimit(rateOf(event.rateLimit()));
+        });
+    }
+
+    public void reload() {
+        long started = System.currentTimeMillis();
+        Map<String, Entry> loaded = new HashMap<>();
+        for (Object[] row : apiKeyRep.findIndexRows(LocalDateTime.now())) {
+            Entry entry = toEntry(row);
+            if (entry != null) {
+                loaded.put((String) row[1], entry);
+            }
+        }
+        loaded.forEach((prefix, entry) -> {
+            if (!changedSince(prefix, started)) {
+                entries.put(prefix, entry);
+            }
+        });
+        entries.keySet().removeIf(prefix -> !loaded.containsKey(prefix) && !changedSince(prefix, started));
+        changedAt.values().removeIf(at -> at < started);
+        reloads.increment();
+        log.debug("Reloaded API key index with {} keys", entries.size());
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "keys", (long) entries.size(),
+                "accepted", accepted.sum(),
+                "rejected", rejected.sum(),
+                "reloads", reloads.sum()
+        );
+    }
+
+    private boolean changedSince(String prefix, long since) {
+        Long at = changedAt.get(prefix);
+        return at != null && at >= since;
+    }
+
+    // A key whose allowed IPs cannot be compiled is left out, rather than usable from anywhere
+    private Entry toEntry(Object[] row) {
+        CidrTrie allowedIps;
+        try {
+            allowedIps = row[8] != null ? CidrTrie.compile(Arrays.asList((String[]) row[8])) : CidrTrie.EMPTY;
+        } catch (IllegalArgumentException e) {
+            log.warn("Skipping API key {} with invalid allowed IPs: {}", row[1], e.getMessage());
+            return null;
+        }
+        LocalDateTime expiresAt = (LocalDateTime) row[4];
+        long expiresAtMillis = expiresAt != null
+                ? expiresAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli()
+                : Long.MAX_VALUE;
+        return new Entry((UUID) row[0], (UUID) row[3], HexFormat.of().parseHex((String) row[2]),
+                expiresAtMillis, parsePermissions((String) row[5]), rateOf(row[6]), rateOf(row[7]), allowedIps);
+    }
+
+    // A missing limit is not enforced
+    private static int rateOf(Object rateLimit) {
+        return rateLimit != null ? (Integer) rateLimit : 0;
+    }
+
+    private Set<String> parsePermissions(String json) {
+        if (json == null || json.isBlank()) {
+            return Set.of();
+        }
+        try {
+            return Set.copyOf(objectMapper.readValue(json, new TypeReference<List<String>>() {
+            }));
+        } catch (JsonProcessingException e) {
+            log.warn("Ignoring malformed API key permissions: {}", e.getOriginalMessage());
+            return Set.of();
+        }
+    }
+
+    private static String prefixOf(String apiKey) {
+        if (apiKey == null || !apiKey.startsWith(KEY_MARKER)) {
+            return null;
+        }
+        int dot = apiKey.indexOf('.', KEY_MARKER.length());
+        return dot > KEY_MARKER.length() ? apiKey.substring(KEY_MARKER.length(), dot) : null;
+    }
+
+    private static byte[] sha256(String value) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload API key index", e);
+        }
+    }
+
+    public record Entry(UUID apiKeyId, UUID systemId, byte[] keyHash, long expiresAtMillis, Set<String> permissions,
+                        int keyRateLimit, int systemRateLimit, CidrTrie allowedIps) {
+
+        Entry withSystemRateLimit(int rateLimit) {
+            return new Entry(apiKeyId, systemId, keyHash, expiresAtMillis, permissions, keyRateLimit, rateLimit,
+                    allowedIps);
+        }
+    }
+
+    public record GeneratedKey(String key, String prefix, String hash) {
+    }
+}
@@ -0,0 +1,190 @@
+package ai.uniauth.service.system;
+
+import ai.uniauth.exception.ServiceOverloadedException;
+import ai.uniauth.rep.UniSystemRep;
+import ai.uniauth.util.CidrTrie;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-system allowed and blocked client IPs, kept in {@code UniSystem.config} under
+ * {@link #ALLOWED_IPS} and {@link #BLOCKED_IPS}, combined with the key's own
+ * {@code ApiKey.allowedIps} from its {@link ApiKeyIndex} entry. Each list is compiled into
+ * a {@link CidrTrie} that is replaced whole when the list changes, so checks never see a
+ * half-applied change. Lists changed on this node apply after commit; the rest are picked
+ * up by the periodic reload. Until the first load has succeeded, API key requests are
+ * refused rather than checked against rules that are not there yet.
+ */
+@Slf4j
+@Component
+public class SystemIpRules {
+
+    public static final String ALLOWED_IPS = "allowedIps";
+    public static final String BLOCKED_IPS = "blockedIps";
+
+    private static final Rules UNRESTRICTED = new Rules(CidrTrie.EMPTY, CidrTrie.EMPTY);
+    // Used for a system whose stored rules cannot be read, so a broken allowlist fails closed
+    private static final Rules DENY_ALL = new Rules(CidrTrie.EMPTY, CidrTrie.compile(List.of("0.0.0.0/0", "::/0")));
+
+    private final UniSystemRep uniSystemRep;
+    private final ObjectMapper objectMapper;
+    private final long reloadMinutes;
+
+    private final Map<UUID, Rules> rules = new ConcurrentHashMap<>();
+    private final Map<UUID, Long> changedAt = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+
+    private final LongAdder allowed = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+    private final LongAdder notAllowed = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    public SystemIpRules(UniSystemRep uniSystemRep,
+                         ObjectMapper objectMapper,
+                         @Value("${uni.systems.ip-rules.reload-minutes:5}") long reloadMinutes) {
+        this.uniSystemRep = uniSystemRep;
+        this.objectMapper = objectMapper;
+        this.reloadMinutes = reloadMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        // Loaded before traffic is admitted; a failure leaves requests refused until a reload succeeds
+        reloadQuietly();
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "system-ip-rules");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::reloadQuietly, reloadMinutes, reloadMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return false if the address is blocked for the key's system, or outside a non-empty
+     *         allowlist of the system or of the key
+     * @throws ServiceOverloadedException with 503 while the rules have not been loaded
+     */
+    public boolean isAllowed(ApiKeyIndex.Entry entry, String address) {
+        if (!ready) {
+            throw new ServiceOverloadedException(HttpStatus.SERVICE_UNAVAILABLE, 5, "IP rules are not loaded yet");
+        }
+        Rules system = rules.getOrDefault(entry.systemId(), UNRESTRICTED);
+        if (system.blocked().contains(address)) {
+            blocked.increment();
+            return false;
+        }
+        if (!permits(system.allowed(), address) || !permits(entry.allowedIps(), address)) {
+            notAllowed.increment();
+            return false;
+        }
+        allowed.increment();
+        return true;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onSystemIpRulesChanged(SystemIpRulesChangedEvent event) {
+        changedAt.put(event.systemId(), System.currentTimeMillis());
+        rules.put(event.systemId(), new Rules(CidrTrie.compile(event.allowedIps()), CidrTrie.compile(event.blockedIps())));
+    }
+
+    public void reload() {
+        long started = System.currentTimeMillis();
+        Map<UUID, Rules> loaded = new HashMap<>();
+        for (Object[] row : uniSystemRep.findActiveConfigRows()) {
+            Rules systemRules = toRules((UUID) row[0], (String) row[1]);
+            if (systemRules != UNRESTRICTED) {
+                loaded.put((UUID) row[0], systemRules);
+            }
+        }
+        loaded.forEach((systemId, systemRules) -> {
+            if (!changedSince(systemId, started)) {
+                rules.put(systemId, systemRules);
+            }
+        });
+        rules.keySet().removeIf(systemId -> !loaded.containsKey(systemId) && !changedSince(systemId, started));
+        changedAt.values().removeIf(at -> at < started);
+        ready = true;
+        reloads.increment();
+        log.debug("Reloaded IP rules of {} systems", rules.size());
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "systems", (long) rules.size(),
+                "allowed", allowed.sum(),
+                "blocked", blocked.sum(),
+                "notAllowed", notAllowed.sum(),
+                "reloads", reloads.sum()
+        );
+    }
+
+    private static boolean permits(CidrTrie allowlist, String address) {
+        return allowlist.isEmpty() || allowlist.contains(address);
+    }
+
+    private boolean changedSince(UUID systemId, long since) {
+        Long at = changedAt.get(systemId);
+        return at != null && at >= since;
+    }
+
+    private Rules toRules(UUID systemId, String config) {
+        try {
+            JsonNode root = objectMapper.readTree(config);
+            List<String> allowedIps = readList(root.path(ALLOWED_IPS));
+            List<String> blockedIps = readList(root.path(BLOCKED_IPS));
+            if (allowedIps.isEmpty() && blockedIps.isEmpty()) {
+                return UNRESTRICTED;
+            }
+            return new Rules(CidrTrie.compile(allowedIps), CidrTrie.compile(blockedIps));
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            log.warn("Denying all addresses for system {} with unreadable IP rules: {}", systemId, e.getMessage());
+            return DENY_ALL;
+        }
+    }
+
+    private static List<String> readList(JsonNode node) {
+        if (!node.isArray()) {
+            return List.of();
+        }
+        List<String> values = new ArrayList<>(node.size());
+        node.forEach(value -> values.add(value.asText()));
+        return values;
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.warn("Failed to reload system IP rules", e);
+        }
+    }
+
+    private record Rules(CidrTrie allowed, CidrTrie blocked) {
+    }
+}
@@ -0,0 +1,11 @@
+package ai.uniauth.service.system;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published inside the transaction that changes a system's allowed or blocked IPs;
+ * {@link SystemIpRules} compiles the new lists once the transaction has committed.
+ */
+public record SystemIpRulesChangedEvent(UUID systemId, List<String> allowedIps, List<String> blockedIps) {
+}
@@ -0,0 +1,10 @@
+package ai.uniauth.service.system;
+
+import java.util.UUID;
+
+/**
+ * Published inside the transaction that changes {@code UniSystem.rateLimit};
+ * {@link ApiKeyIndex} applies it to the system's keys once the transaction has committed.
+ */
+public record SystemRateLimitChangedEvent(UUID systemId, Integer rateLimit) {
+}
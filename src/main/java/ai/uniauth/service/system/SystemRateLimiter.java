@@ -0,0 +1,110 @@
+package ai.uniauth.service.system;
+
+import ai.uniauth.exception.ServiceOverloadedException;
+import ai.uniauth.util.TokenBucket;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Enforces {@code UniSystem.rateLimit} and {@code ApiKey.rateLimit}, both counted per
+ * period, with one {@link TokenBucket} per system and per key. The limits are read from
+ * the {@link ApiKeyIndex} entry on every request, so a changed limit applies as soon as
+ * the index has it. Buckets that have refilled completely are dropped once per period, so
+ * revoked keys and deactivated systems do not keep theirs.
+ */
+@Component
+public class SystemRateLimiter {
+
+    private final long periodNanos;
+    private final Map<UUID, TokenBucket> systemBuckets = new ConcurrentHashMap<>();
+    private final Map<UUID, TokenBucket> keyBuckets = new ConcurrentHashMap<>();
+    private final Map<UUID, LongAdder> rejectionsBySystem = new ConcurrentHashMap<>();
+    private volatile long lastSweepNanos;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejectedByKey = new LongAdder();
+    private final LongAdder rejectedBySystem = new LongAdder();
+    private final LongAdder sweptBuckets = new LongAdder();
+
+    public SystemRateLimiter(@Value("${uni.systems.rate-limit.period-seconds:60}") long periodSeconds) {
+        this.periodNanos = TimeUnit.SECONDS.toNanos(periodSeconds);
+        this.lastSweepNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes one token from the key's bucket and then from its system's bucket.
+     *
+     * @throws ServiceOverloadedException with 429 and a Retry-After when either is empty
+     */
+    public void acquire(ApiKeyIndex.Entry entry) {
+        long now = System.nanoTime();
+        sweep(now);
+        long wait = bucket(keyBuckets, entry.apiKeyId(), now).tryAcquire(entry.keyRateLimit(), now);
+        if (wait > 0) {
+            rejectedByKey.increment();
+            throw reject(entry.systemId(), wait, "API key rate limit exceeded");
+        }
+        // A token taken from the key is not returned when the system is over its limit;
+        // the key then waits like every other caller of that system
+        wait = bucket(systemBuckets, entry.systemId(), now).tryAcquire(entry.systemRateLimit(), now);
+        if (wait > 0) {
+            rejectedBySystem.increment();
+            throw reject(entry.systemId(), wait, "System rate limit exceeded");
+        }
+        accepted.increment();
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "systems", (long) systemBuckets.size(),
+                "keys", (long) keyBuckets.size(),
+                "accepted", accepted.sum(),
+                "rejectedByKey", rejectedByKey.sum(),
+                "rejectedBySystem", rejectedBySystem.sum(),
+                "sweptBuckets", sweptBuckets.sum()
+        );
+    }
+
+    public Map<UUID, Long> getRejectionsBySystem() {
+        Map<UUID, Long> result = new HashMap<>();
+        rejectionsBySystem.forEach((systemId, count) -> result.put(systemId, count.sum()));
+        return result;
+    }
+
+    private void sweep(long now) {
+        if (now - lastSweepNanos < periodNanos) {
+            return;
+        }
+        lastSweepNanos = now;
+        // A full bucket holds no state; one removed while in use may grant a single extra token
+        systemBuckets.values().removeIf(bucket -> isSwept(bucket, now));
+        keyBuckets.values().removeIf(bucket -> isSwept(bucket, now));
+    }
+
+    private boolean isSwept(TokenBucket bucket, long now) {
+        if (!bucket.isFull(now)) {
+            return false;
+        }
+        sweptBuckets.increment();
+        return true;
+    }
+
+    private TokenBucket bucket(Map<UUID, TokenBucket> buckets, UUID id, long now) {
+        TokenBucket bucket = buckets.get(id);
+        return bucket != null ? bucket : buckets.computeIfAbsent(id, key -> new TokenBucket(periodNanos, now));
+    }
+
+    private ServiceOverloadedException reject(UUID systemId, long waitNanos, String message) {
+        rejectionsBySystem.computeIfAbsent(systemId, id -> new LongAdder()).increment();
+        long retryAfterSeconds = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+        return new ServiceOverloadedException(HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds, message);
+    }
+}
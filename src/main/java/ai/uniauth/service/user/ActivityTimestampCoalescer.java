@@ -0,0 +1,152 @@
+package ai.uniauth.service.user;
+
+import ai.uniauth.util.UuidBytes;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind for {@code users.last_login_at}, {@code user_sessions.last_activity_at} and
+ * {@code api_keys.last_used_at}.
+ * Only the latest timestamp per row is kept and all pending rows are written together
+ * with batched UPDATEs once per flush interval, so the write rate follows the number of
+ * distinct users and sessions rather than the number of requests. A timestamp is never
+ * moved backwards.
+ */
+@Slf4j
+@Component
+public class ActivityTimestampCoalescer {
+
+    private static final String UPDATE_LAST_LOGIN_SQL = "UPDATE users SET last_login_at = ? "
+            + "WHERE id = ? AND (last_login_at IS NULL OR last_login_at < ?)";
+    private static final String UPDATE_LAST_ACTIVITY_SQL = "UPDATE user_sessions SET last_activity_at = ? "
+            + "WHERE id = ? AND (last_activity_at IS NULL OR last_activity_at < ?)";
+    private static final String UPDATE_API_KEY_USED_SQL = "UPDATE api_keys SET last_used_at = ? "
+            + "WHERE id = ? AND (last_used_at IS NULL OR last_used_at < ?)";
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long flushSeconds;
+
+    private final Map<UUID, LocalDateTime> pendingLogins = new ConcurrentHashMap<>();
+    private final Map<UUID, LocalDateTime> pendingActivity = new ConcurrentHashMap<>();
+    private final Map<UUID, LocalDateTime> pendingApiKeyUse = new ConcurrentHashMap<>();
+
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    public ActivityTimestampCoalescer(JdbcTemplate jdbcTemplate,
+                                      @Value("${uni.users.activity.flush-seconds:30}") long flushSeconds) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.flushSeconds = flushSeconds;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "activity-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flush, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    public void recordLogin(UUID userId, LocalDateTime at) {
+        recorded.increment();
+        pendingLogins.merge(userId, at, ActivityTimestampCoalescer::latest);
+    }
+
+    public void recordSessionActivity(UUID sessionId, LocalDateTime at) {
+        recorded.increment();
+        pendingActivity.merge(sessionId, at, ActivityTimestampCoalescer::latest);
+    }
+
+    public void recordApiKeyUse(UUID apiKeyId, LocalDateTime at) {
+        recorded.increment();
+        pendingApiKeyUse.merge(apiKeyId, at, ActivityTimestampCoalescer::latest);
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "pendingLogins", (long) pendingLogins.size(),
+                "pendingSessions", (long) pendingActivity.size(),
+                "pendingApiKeys", (long) pendingApiKeyUse.size(),
+                "recorded", recorded.sum(),
+                "written", written.sum(),
+                "failed", failed.sum()
+        );
+    }
+
+    synchronized void flush() {
+        flush(pendingLogins, UPDATE_LAST_LOGIN_SQL, "last login");
+        flush(pendingActivity, UPDATE_LAST_ACTIVITY_SQL, "session activity");
+        flush(pendingApiKeyUse, UPDATE_API_KEY_USED_SQL, "API key use");
+    }
+
+    private void flush(Map<UUID, LocalDateTime> pending, String sql, String what) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<UUID, LocalDateTime>> rows = new ArrayList<>(pending.size());
+        for (Map.Entry<UUID, LocalDateTime> entry : pending.entrySet()) {
+            // Keeps a newer timestamp recorded meanwhile for the next flush
+            if (pending.remove(entry.getKey(), entry.getValue())) {
+                rows.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+            List<Map.Entry<UUID, LocalDateTime>> batch = rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()));
+            try {
+                jdbcTemplate.batchUpdate(sql, batch, batch.size(), (ps, row) -> {
+                    Timestamp at = Timestamp.valueOf(row.getValue());
+                    ps.setTimestamp(1, at);
+                    ps.setBytes(2, UuidBytes.toBytes(row.getKey()));
+                    ps.setTimestamp(3, at);
+                });
+                written.add(batch.size());
+            } catch (RuntimeException e) {
+                // Put the rows back; the set is bounded by distinct ids, so retrying cannot grow it
+                batch.forEach(row -> pending.merge(row.getKey(), row.getValue(), ActivityTimestampCoalescer::latest));
+                failed.add(batch.size());
+                log.warn("Failed to write {} {} timestamps", batch.size(), what, e);
+            }
+        }
+    }
+
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
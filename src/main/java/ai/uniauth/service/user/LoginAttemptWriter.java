@@ -0,0 +1,170 @@
+package ai.uniauth.service.user;
+
+import ai.uniauth.util.UuidBytes;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Buffers login attempts in a bounded queue and writes them with JDBC batch inserts,
+ * whenever a full batch is waiting or the flush interval elapses. Recording never blocks
+ * the login path: when the buffer is full the attempt is dropped and counted. Whatever is
+ * still buffered is written on shutdown.
+ */
+@Slf4j
+@Component
+public class LoginAttemptWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO login_attempts "
+            + "(id, user_id, username, success, failure_reason, attempted_at, ip_address, user_agent, "
+            + "mfa_used, created_at, version, is_deleted) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, false, ?, 0, false)";
+
+    private static final int SHORT_COLUMN_LENGTH = 100;
+    private static final int IP_COLUMN_LENGTH = 255;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final long flushIntervalMillis;
+    private final BlockingQueue<PendingAttempt> buffer;
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+    private final LongAdder recorded = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    public LoginAttemptWriter(JdbcTemplate jdbcTemplate,
+                              @Value("${uni.auth.login-attempts.buffer-capacity:10000}") int bufferCapacity,
+                              @Value("${uni.auth.login-attempts.batch-size:200}") int batchSize,
+                              @Value("${uni.auth.login-attempts.flush-interval-millis:1000}") long flushIntervalMillis) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "login-attempt-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdown();
+            try {
+                executor.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flushQuietly();
+        if (!buffer.isEmpty()) {
+            log.warn("{} login attempts could not be written before shutdown", buffer.size());
+        }
+    }
+
+    /**
+     * @param userId null when the identifier did not match any user
+     * @return false if the buffer was full and the attempt was dropped
+     */
+    public boolean record(UUID userId, String username, boolean success, String failureReason,
+                          String ipAddress, String userAgent) {
+        PendingAttempt attempt = new PendingAttempt(userId, truncate(username, SHORT_COLUMN_LENGTH), success,
+                truncate(failureReason, SHORT_COLUMN_LENGTH), truncate(ipAddress, IP_COLUMN_LENGTH), userAgent,
+                LocalDateTime.now());
+        if (!buffer.offer(attempt)) {
+            dropped.increment();
+            return false;
+        }
+        recorded.increment();
+        if (buffer.size() >= batchSize && executor != null && flushRequested.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::flushQuietly);
+            } catch (RuntimeException e) {
+                // Shutting down; stop() writes what is left
+                flushRequested.set(false);
+            }
+        }
+        return true;
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "buffered", (long) buffer.size(),
+                "recorded", recorded.sum(),
+                "written", written.sum(),
+                "dropped", dropped.sum(),
+                "failed", failed.sum(),
+                "batches", batches.sum()
+        );
+    }
+
+    private synchronized void flushQuietly() {
+        flushRequested.set(false);
+        List<PendingAttempt> batch = new ArrayList<>(batchSize);
+        while (buffer.drainTo(batch, batchSize) > 0) {
+            try {
+                insert(batch);
+                written.add(batch.size());
+            } catch (RuntimeException e) {
+                // Not retried: a failing database would otherwise pin the buffer at capacity
+                failed.add(batch.size());
+                log.warn("Failed to write {} login attempts", batch.size(), e);
+            }
+            batches.increment();
+            batch.clear();
+        }
+    }
+
+    private void insert(List<PendingAttempt> batch) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, attempt) -> {
+            Timestamp attemptedAt = Timestamp.valueOf(attempt.attemptedAt());
+            ps.setBytes(1, UuidBytes.toBytes(UUID.randomUUID()));
+            ps.setBytes(2, attempt.userId() != null ? UuidBytes.toBytes(attempt.userId()) : null);
+            ps.setString(3, attempt.username());
+            ps.setBoolean(4, attempt.success());
+            ps.setString(5, attempt.failureReason());
+            ps.setTimestamp(6, attemptedAt);
+            ps.setString(7, attempt.ipAddress());
+            ps.setString(8, attempt.userAgent());
+            ps.setTimestamp(9, attemptedAt);
+        });
+    }
+
+    private static String truncate(String value, int maxLength) {
+        return value != null && value.length() > maxLength ? value.substring(0, maxLength) : value;
+    }
+
+    private record PendingAttempt(UUID userId, String username, boolean success, String failureReason,
+                                  String ipAddress, String userAgent, LocalDateTime attemptedAt) {
+    }
+}
@@ -0,0 +1,241 @@
+package ai.uniauth.service.user;
+
+import ai.uniauth.exception.InvalidRequestException;
+import ai.uniauth.exception.ServiceOverloadedException;
+import ai.uniauth.models.PasswordReset;
+import ai.uniauth.models.User;
+import ai.uniauth.rep.PasswordResetRep;
+import ai.uniauth.util.SlidingWindowCounter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Password reset tokens. Only the hex SHA-256 of a token is stored, and outstanding
+ * tokens are cached briefly so a reset link that is opened and then submitted is looked
+ * up once. Issuance is limited per user in memory, and expired rows are deleted in
+ * chunks in the background. Consuming a token is always decided by a conditional update,
+ * so a cached entry for a token used on another node still cannot be used twice.
+ */
+@Slf4j
+@Component
+public class PasswordResetTokens {
+
+    private static final int TOKEN_BYTES = 32;
+    private static final int BUCKETS = 12;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private final PasswordResetRep passwordResetRep;
+    private final TransactionTemplate transactionTemplate;
+    private final long tokenLifetimeMillis;
+    private final long cacheMillis;
+    private final int maxPerUser;
+    private final int purgeChunkSize;
+    private final long purgeMinutes;
+
+    private final Map<String, Outstanding> outstanding = new ConcurrentHashMap<>();
+    private final SlidingWindowCounter<UUID> issuedPerUser;
+
+    private final LongAdder issued = new LongAdder();
+    private final LongAdder throttled = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder purged = new LongAdder();
+
+    private ScheduledExecutorService executor;
+
+    public PasswordResetTokens(PasswordResetRep passwordResetRep,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${uni.users.password-reset.token-minutes:30}") long tokenMinutes,
+                               @Value("${uni.users.password-reset.cache-seconds:60}") long cacheSeconds,
+                               @Value("${uni.users.password-reset.window-minutes:60}") long windowMinutes,
+                               @Value("${uni.users.password-reset.max-per-user:3}") int maxPerUser,
+                               @Value("${uni.users.password-reset.purge-chunk-size:500}") int purgeChunkSize,
+                               @Value("${uni.users.password-reset.purge-minutes:30}") long purgeMinutes) {
+        this.passwordResetRep = passwordResetRep;
+        this.transactionTemplate = transactionTemplate;
+        this.tokenLifetimeMillis = TimeUnit.MINUTES.toMillis(tokenMinutes);
+        this.cacheMillis = TimeUnit.SECONDS.toMillis(cacheSeconds);
+        this.maxPerUser = maxPerUser;
+        this.purgeChunkSize = purgeChunkSize;
+        this.purgeMinutes = purgeMinutes;
+        this.issuedPerUser = new SlidingWindowCounter<>(TimeUnit.MINUTES.toMillis(windowMinutes), BUCKETS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "password-reset-purge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::purgeQuietly, purgeMinutes, purgeMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Issues a new token for {@code user}; earlier outstanding tokens of the user stop working.
+     *
+     * @return the raw token, to be sent to the user and never stored
+     */
+    public String issue(User user) {
+        long now = System.currentTimeMillis();
+        if (issuedPerUser.increment(user.getId(), now) > maxPerUser) {
+            throttled.increment();
+            long retryAfterSeconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(issuedPerUser.getBucketMillis()));
+            throw new ServiceOverloadedException(HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds,
+                    "Too many password reset requests");
+        }
+
+        byte[] bytes = new byte[TOKEN_BYTES];
+        RANDOM.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        String tokenHash = hash(token);
+        long expiresAtMillis = now + tokenLifetimeMillis;
+        transactionTemplate.executeWithoutResult(status -> {
+            passwordResetRep.invalidateUserTokens(user.getId());
+            passwordResetRep.save(PasswordReset.builder()
+                    .tokenHash(tokenHash)
+                    .user(user)
+                    .createdAt(LocalDateTime.now())
+                    .expiresAt(toLocalDateTime(expiresAtMillis))
+                    .isUsed(false)
+                    .build());
+        });
+        outstanding.values().removeIf(entry -> entry.userId().equals(user.getId()));
+        outstanding.put(tokenHash, new Outstanding(user.getId(), expiresAtMillis, now + cacheMillis));
+        issued.increment();
+        return token;
+    }
+
+    public boolean validate(String token) {
+        if (token == null || token.isBlank()) {
+            return false;
+        }
+        return lookup(hash(token), System.currentTimeMillis()) != null;
+    }
+
+    /**
+     * Marks the token used; must run inside the transaction that applies the reset.
+     *
+     * @return the ID of the user the token was issued to
+     */
+    public UUID consume(String token, String ipAddress) {
+        if (token == null || token.isBlank()) {
+            throw new InvalidRequestException("Invalid or expired password reset token");
+        }
+        String tokenHash = hash(token);
+        UUID userId = lookup(tokenHash, System.currentTimeMillis());
+        outstanding.remove(tokenHash);
+        if (userId == null || passwordResetRep.markAsUsed(tokenHash, ipAddress) == 0) {
+            throw new InvalidRequestException("Invalid or expired password reset token");
+        }
+        return userId;
+    }
+
+    public void purge() {
+        long now = System.currentTimeMillis();
+        outstanding.values().removeIf(entry -> entry.cachedUntilMillis() <= now || entry.expiresAtMillis() <= now);
+        issuedPerUser.expire(now);
+
+        LocalDateTime cutoffDate = LocalDateTime.now();
+        int deleted = 0;
+        List<String> tokenHashes;
+        do {
+            // Each chunk is deleted in its own short transaction, so the next query starts past it
+            tokenHashes = passwordResetRep.findExpiredTokenHashes(cutoffDate, PageRequest.of(0, purgeChunkSize));
+            if (!tokenHashes.isEmpty()) {
+                List<String> chunk = tokenHashes;
+                transactionTemplate.executeWithoutResult(status -> passwordResetRep.deleteAllByIdInBatch(chunk));
+                deleted += chunk.size();
+                purged.add(chunk.size());
+            }
+        } while (tokenHashes.size() == purgeChunkSize && !Thread.currentThread().isInterrupted());
+        if (deleted > 0) {
+            log.info("Deleted {} expired password reset tokens", deleted);
+        }
+    }
+
+    public Map<String, Long> getStats() {
+        return Map.of(
+                "outstanding", (long) outstanding.size(),
+                "issued", issued.sum(),
+                "throttled", throttled.sum(),
+                "cacheHits", cacheHits.sum(),
+                "cacheMisses", cacheMisses.sum(),
+                "purged", purged.sum()
+        );
+    }
+
+    private UUID lookup(String tokenHash, long now) {
+        Outstanding cached = outstanding.get(tokenHash);
+        if (cached != null && cached.cachedUntilMillis() > now) {
+            cacheHits.increment();
+            return cached.expiresAtMillis() > now ? cached.userId() : null;
+        }
+        cacheMisses.increment();
+        List<Object[]> rows = passwordResetRep.findOutstandingToken(tokenHash, LocalDateTime.now());
+        if (rows.isEmpty()) {
+            outstanding.remove(tokenHash);
+            return null;
+        }
+        UUID userId = (UUID) rows.get(0)[0];
+        long expiresAtMillis = ((LocalDateTime) rows.get(0)[1]).atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        outstanding.put(tokenHash, new Outstanding(userId, expiresAtMillis, now + cacheMillis));
+        return userId;
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+
+    private void purgeQuietly() {
+        try {
+            purge();
+        } catch (RuntimeException e) {
+            log.warn("Failed to purge password reset tokens", e);
+        }
+    }
+
+    private record Outstanding(UUID userId, long expiresAtMillis, long cachedUntilMillis) {
+    }
+}
@@ -0,0 +1,161 @@
+package ai.uniauth.service.user;
+
+import ai.uniauth.rep.UserRep;
+import ai.uniauth.util.BloomFilter;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bloom filters over taken usernames, emails and phone numbers. A negative answer means
+ * the identifier is definitely not in use and needs no query; a positive one must be
+ * confirmed against the database. Deleted users are only dropped by the periodic
+ * rebuild, which also picks up users created by other nodes.
+ */
+@Slf4j
+@Component
+public class UserIdentifierIndex {
+
+    public enum Type {
+        USERNAME,
+        EMAIL,
+        PHONE_NUMBER
+    }
+
+    private final UserRep userRep;
+    private final double falsePositiveRate;
+    private final long rebuildMinutes;
+
+    private volatile Map<Type, BloomFilter> filters;
+
+    // Values added while a rebuild is loading, replayed into the new filters; guarded by this
+    private List<Map.Entry<Type, String>> pendingAdds;
+
+    private ScheduledExecutorService executor;
+
+    public UserIdentifierIndex(UserRep userRep,
+                               @Value("${uni.users.identifier-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                               @Value("${uni.users.identifier-filter.rebuild-minutes:30}") long rebuildMinutes) {
+        this.userRep = userRep;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rebuildMinutes = rebuildMinutes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "user-identifier-index");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildMinutes, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return false only if the identifier is certainly not taken; always true until the
+     *         filters are built
+     */
+    public boolean mightExist(Type type, String value) {
+        Map<Type, BloomFilter> current = filters;
+        if (current == null || value == null) {
+            return current == null;
+        }
+        return current.get(type).mightContain(normalize(type, value));
+    }
+
+    public void add(Type type, String value) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        String normalized = normalize(type, value);
+        synchronized (this) {
+            if (pendingAdds != null) {
+                pendingAdds.add(Map.entry(type, normalized));
+            }
+            Map<Type, BloomFilter> current = filters;
+            if (current != null) {
+                BloomFilter filter = current.get(type);
+                filter.put(normalized);
+                // Grown past its sizing, so the false positive rate is drifting up
+                if (filter.isSaturated() && pendingAdds == null && executor != null) {
+                    pendingAdds = new ArrayList<>();
+                    executor.execute(this::rebuildQuietly);
+                }
+            }
+        }
+    }
+
+    public void rebuild() {
+        synchronized (this) {
+            if (pendingAdds == null) {
+                pendingAdds = new ArrayList<>();
+            }
+        }
+        try {
+            List<Object[]> rows = userRep.findAllIdentifiers();
+            long expected = Math.max(1024, rows.size() * 2L);
+            Map<Type, BloomFilter> rebuilt = new EnumMap<>(Type.class);
+            for (Type type : Type.values()) {
+                rebuilt.put(type, new BloomFilter(expected, falsePositiveRate));
+            }
+            for (Object[] row : rows) {
+                putIfPresent(rebuilt, Type.USERNAME, (String) row[0]);
+                putIfPresent(rebuilt, Type.EMAIL, (String) row[1]);
+                putIfPresent(rebuilt, Type.PHONE_NUMBER, (String) row[2]);
+            }
+            synchronized (this) {
+                pendingAdds.forEach(add -> rebuilt.get(add.getKey()).put(add.getValue()));
+                filters = rebuilt;
+            }
+            log.info("Built user identifier filters for {} users", rows.size());
+        } finally {
+            synchronized (this) {
+                pendingAdds = null;
+            }
+        }
+    }
+
+    public static String normalize(Type type, String value) {
+        String trimmed = value.trim();
+        if (type == Type.PHONE_NUMBER) {
+            StringBuilder digits = new StringBuilder(trimmed.length());
+            for (int i = 0; i < trimmed.length(); i++) {
+                char c = trimmed.charAt(i);
+                if (Character.isDigit(c) || (c == '+' && digits.length() == 0)) {
+                    digits.append(c);
+                }
+            }
+            return digits.toString();
+        }
+        return trimmed.toLowerCase(Locale.ROOT);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.warn("Failed to rebuild user identifier filters", e);
+        }
+    }
+
+    private static void putIfPresent(Map<Type, BloomFilter> filters, Type type, String value) {
+        if (value != null && !value.isBlank()) {
+            filters.get(type).put(normalize(type, value));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package ai.uniauth.util;
+
+import java.util.Arrays;
+
+/**
+ * RFC 4648 Base32, the encoding authenticator apps expect for OTP secrets. Decoding is
+ * case-insensitive and ignores padding, spaces and dashes.
+ */
+public final class Base32 {
+
+    private static final char[] ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567".toCharArray();
+
+    private Base32() {
+    }
+
+    public static String encode(byte[] bytes) {
+        StringBuilder result = new StringBuilder((bytes.length * 8 + 4) / 5);
+        int buffer = 0;
+        int bits = 0;
+        for (byte b : bytes) {
+            buffer = (buffer << 8) | (b & 0xff);
+            bits += 8;
+            while (bits >= 5) {
+                result.append(ALPHABET[(buffer >>> (bits - 5)) & 0x1f]);
+                bits -= 5;
+            }
+        }
+        if (bits > 0) {
+            result.append(ALPHABET[(buffer << (5 - bits)) & 0x1f]);
+        }
+        return result.toString();
+    }
+
+    public static byte[] decode(String encoded) {
+        byte[] result = new byte[encoded.length() * 5 / 8];
+        int length = 0;
+        int buffer = 0;
+        int bits = 0;
+        for (int i = 0; i < encoded.length(); i++) {
+            char c = encoded.charAt(i);
+            if (c == '=' || c == ' ' || c == '-') {
+                continue;
+            }
+            buffer = (buffer << 5) | valueOf(c);
+            bits += 5;
+            if (bits >= 8) {
+                result[length++] = (byte) (buffer >>> (bits - 8));
+                bits -= 8;
+            }
+        }
+        return length == result.length ? result : Arrays.copyOf(result, length);
+    }
+
+    private static int valueOf(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a';
+        }
+        if (c >= '2' && c <= '7') {
+            return c - '2' + 26;
+        }
+        throw new IllegalArgumentException("Invalid Base32 character: " + c);
+    }
+}
@@ -0,0 +1,364 @@
+package ai.uniauth.util;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable set of IPv4 and IPv6 addresses and CIDR ranges, compiled into one binary
+ * prefix trie per address family. A lookup parses the address straight into 16-bit groups
+ * in a per-thread buffer and walks at most 32 or 128 nodes, so its cost does not depend
+ * on the number of rules and it allocates nothing. IPv4-mapped IPv6 addresses
+ * ({@code ::ffff:10.0.0.1}) are matched as IPv4. Instances are built once and replaced
+ * whole when the rules change.
+ */
+public final class CidrTrie {
+
+    public static final CidrTrie EMPTY = compile(List.of());
+
+    private static final int INVALID = 0;
+    private static final int IPV4 = 4;
+    private static final int IPV6 = 6;
+    // IPv4 addresses occupy the last two groups, as in an IPv4-mapped IPv6 address
+    private static final int IPV4_FIRST_GROUP = 6;
+    // Added to the prefix length of a parsed IPv4 rule, above any IPv6 length
+    private static final int IPV4_RULE = 1_000;
+
+    private static final ThreadLocal<int[]> GROUPS = ThreadLocal.withInitial(() -> new int[8]);
+
+    private final Trie ipv4;
+    private final Trie ipv6;
+    private final int size;
+
+    private CidrTrie(Trie ipv4, Trie ipv6, int size) {
+        this.ipv4 = ipv4;
+        this.ipv6 = ipv6;
+        this.size = size;
+    }
+
+    /**
+     * @param rules addresses or CIDR ranges such as {@code 10.0.0.0/8} or {@code 2001:db8::/32}
+     * @throws IllegalArgumentException if a rule is not a valid address or range
+     */
+    public static CidrTrie compile(Collection<String> rules) {
+        TrieBuilder ipv4 = new TrieBuilder();
+        TrieBuilder ipv6 = new TrieBuilder();
+        int[] groups = new int[8];
+        for (String rule : rules) {
+            int prefixLength = parseRule(rule, groups);
+            if (prefixLength > 128) {
+                ipv4.insert(groups, IPV4_FIRST_GROUP, prefixLength - IPV4_RULE);
+            } else {
+                ipv6.insert(groups, 0, prefixLength);
+            }
+        }
+        return new CidrTrie(ipv4.build(), ipv6.build(), rules.size());
+    }
+
+    /**
+     * Canonical form of a rule, so equal rules compare equal as strings: always with a
+     * prefix length, host bits cleared, and IPv6 in RFC 5952 form, e.g. {@code 10.0.0.1}
+     * becomes {@code 10.0.0.1/32} and {@code 2001:DB8:0:0::1/64} becomes {@code 2001:db8::/64}.
+     *
+     * @throws IllegalArgumentException if the rule is not a valid address or range
+     */
+    public static String normalize(String rule) {
+        int[] groups = new int[8];
+        int prefixLength = parseRule(rule, groups);
+        StringBuilder result = new StringBuilder(44);
+        if (prefixLength > 128) {
+            prefixLength -= IPV4_RULE;
+            clearHostBits(groups, IPV4_FIRST_GROUP, prefixLength);
+            int value = groups[IPV4_FIRST_GROUP] << 16 | groups[IPV4_FIRST_GROUP + 1];
+            result.append(value >>> 24).append('.').append(value >>> 16 & 0xff).append('.')
+                    .append(value >>> 8 & 0xff).append('.').append(value & 0xff);
+        } else {
+            clearHostBits(groups, 0, prefixLength);
+            appendIpv6(result, groups);
+        }
+        return result.append('/').append(prefixLength).toString();
+    }
+
+    /**
+     * Parses a rule into {@code groups}.
+     *
+     * @return the prefix length, plus {@link #IPV4_RULE} for an IPv4 rule
+     */
+    private static int parseRule(String rule, int[] groups) {
+        if (rule == null) {
+            throw new IllegalArgumentException("Invalid IP address or CIDR range: null");
+        }
+        String trimmed = rule.trim();
+        int slash = trimmed.indexOf('/');
+        int end = slash >= 0 ? slash : trimmed.length();
+        int family = parse(trimmed, 0, end, groups);
+        if (family == INVALID) {
+            throw new IllegalArgumentException("Invalid IP address or CIDR range: " + rule);
+        }
+        int bits = family == IPV4 ? 32 : 128;
+        int prefixLength = slash >= 0 ? parsePrefixLength(trimmed, slash + 1, rule) : bits;
+        // A mapped range such as ::ffff:10.0.0.0/104 is written against the 128-bit form
+        if (slash >= 0 && family == IPV4 && trimmed.indexOf(':') >= 0) {
+            prefixLength -= 96;
+        }
+        if (prefixLength < 0 || prefixLength > bits) {
+            throw new IllegalArgumentException("Invalid IP address or CIDR range: " + rule);
+        }
+        return family == IPV4 ? prefixLength + IPV4_RULE : prefixLength;
+    }
+
+    private static void clearHostBits(int[] groups, int firstGroup, int prefixLength) {
+        for (int group = firstGroup; group < groups.length; group++) {
+            int groupBits = prefixLength - (group - firstGroup) * 16;
+            if (groupBits <= 0) {
+                groups[group] = 0;
+            } else if (groupBits < 16) {
+                groups[group] &= 0xffff << (16 - groupBits) & 0xffff;
+            }
+        }
+    }
+
+    private static void appendIpv6(StringBuilder result, int[] groups) {
+        // The longest run of two or more zero groups is written as "::", the first one on a tie
+        int runStart = -1;
+        int runLength = 0;
+        for (int i = 0; i < 8; ) {
+            int j = i;
+            while (j < 8 && groups[j] == 0) {
+                j++;
+            }
+            if (j - i > runLength && j - i >= 2) {
+                runStart = i;
+                runLength = j - i;
+            }
+            i = j == i ? i + 1 : j;
+        }
+        for (int i = 0; i < 8; i++) {
+            if (i == runStart) {
+                result.append("::");
+                i += runLength - 1;
+                continue;
+            }
+            if (result.length() > 0 && result.charAt(result.length() - 1) != ':') {
+                result.append(':');
+            }
+            result.append(Integer.toHexString(groups[i]));
+        }
+    }
+
+    /**
+     * @return whether {@code address} falls into any of the rules; false if it cannot be parsed
+     */
+    public boolean contains(CharSequence address) {
+        if (address == null || size == 0) {
+            return false;
+        }
+        int[] groups = GROUPS.get();
+        return switch (parse(address, 0, address.length(), groups)) {
+            case IPV4 -> ipv4.matches(groups, IPV4_FIRST_GROUP, 32);
+            case IPV6 -> ipv6.matches(groups, 0, 128);
+            default -> false;
+        };
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Parses an IPv4 or IPv6 address, without brackets and ignoring an IPv6 zone, into
+     * eight 16-bit groups.
+     *
+     * @return {@link #IPV4}, {@link #IPV6} or {@link #INVALID}
+     */
+    static int parse(CharSequence s, int from, int to, int[] groups) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == ':') {
+                return parseIpv6(s, from, to, groups);
+            }
+        }
+        return parseIpv4(s, from, to, groups, IPV4_FIRST_GROUP) ? IPV4 : INVALID;
+    }
+
+    private static boolean parseIpv4(CharSequence s, int from, int to, int[] groups, int at) {
+        int value = 0;
+        int octets = 0;
+        int octet = -1;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c >= '0' && c <= '9') {
+                octet = octet < 0 ? c - '0' : octet * 10 + (c - '0');
+                if (octet > 255) {
+                    return false;
+                }
+            } else if (c == '.' && octet >= 0 && octets < 3) {
+                value = value << 8 | octet;
+                octets++;
+                octet = -1;
+            } else {
+                return false;
+            }
+        }
+        if (octet < 0 || octets != 3) {
+            return false;
+        }
+        value = value << 8 | octet;
+        groups[at] = value >>> 16;
+        groups[at + 1] = value & 0xffff;
+        return true;
+    }
+
+    private static int parseIpv6(CharSequence s, int from, int to, int[] groups) {
+        for (int i = from; i < to; i++) {
+            if (s.charAt(i) == '%') {
+                to = i;
+                break;
+            }
+        }
+        int count = 0;
+        int gap = -1;
+        int i = from;
+        if (to - from >= 2 && s.charAt(from) == ':' && s.charAt(from + 1) == ':') {
+            gap = 0;
+            i += 2;
+        }
+        while (i < to) {
+            if (count == 8) {
+                return INVALID;
+            }
+            int start = i;
+            int group = 0;
+            int digit;
+            while (i < to && i - start < 4 && (digit = hexDigit(s.charAt(i))) >= 0) {
+                group = group << 4 | digit;
+                i++;
+            }
+            if (i < to && s.charAt(i) == '.') {
+                if (count > 6 || !parseIpv4(s, start, to, groups, count)) {
+                    return INVALID;
+                }
+                count += 2;
+                break;
+            }
+            if (i == start) {
+                return INVALID;
+            }
+            groups[count++] = group;
+            if (i == to) {
+                break;
+            }
+            if (s.charAt(i++) != ':' || i == to) {
+                return INVALID;
+            }
+            if (s.charAt(i) == ':') {
+                if (gap >= 0) {
+                    return INVALID;
+                }
+                gap = count;
+                i++;
+            }
+        }
+        if (gap < 0 ? count != 8 : count == 8) {
+            return INVALID;
+        }
+        if (gap >= 0) {
+            int tail = count - gap;
+            System.arraycopy(groups, gap, groups, 8 - tail, tail);
+            Arrays.fill(groups, gap, 8 - tail, 0);
+        }
+        boolean mapped = groups[0] == 0 && groups[1] == 0 && groups[2] == 0 && groups[3] == 0
+                && groups[4] == 0 && groups[5] == 0xffff;
+        return mapped ? IPV4 : IPV6;
+    }
+
+    private static int hexDigit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        return -1;
+    }
+
+    private static int parsePrefixLength(String rule, int from, String original) {
+        int value = 0;
+        if (from == rule.length() || rule.length() - from > 3) {
+            throw new IllegalArgumentException("Invalid IP address or CIDR range: " + original);
+        }
+        for (int i = from; i < rule.length(); i++) {
+            char c = rule.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Invalid IP address or CIDR range: " + original);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int bit(int[] groups, int firstGroup, int index) {
+        return groups[firstGroup + (index >> 4)] >>> (15 - (index & 15)) & 1;
+    }
+
+    /**
+     * Nodes as array indexes: node {@code n} has its children at {@code 2n} and {@code 2n + 1}
+     * of {@code children}, 0 meaning none since the root is never a child.
+     */
+    private record Trie(int[] children, boolean[] terminal) {
+
+        boolean matches(int[] groups, int firstGroup, int bits) {
+            int node = 0;
+            for (int i = 0; !terminal[node]; i++) {
+                if (i == bits) {
+                    return false;
+                }
+                node = children[2 * node + bit(groups, firstGroup, i)];
+                if (node == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final class TrieBuilder {
+
+        private int[] children = new int[16];
+        private boolean[] terminal = new boolean[8];
+        private int nodes = 1;
+
+        void insert(int[] groups, int firstGroup, int prefixLength) {
+            int node = 0;
+            // Anything below a shorter matching range is already covered
+            for (int i = 0; i < prefixLength && !terminal[node]; i++) {
+                int slot = 2 * node + bit(groups, firstGroup, i);
+                if (children[slot] == 0) {
+                    // Allocated first: newNode() may replace the array being assigned into
+                    int child = newNode();
+                    children[slot] = child;
+                }
+                node = children[slot];
+            }
+            terminal[node] = true;
+        }
+
+        Trie build() {
+            return new Trie(Arrays.copyOf(children, 2 * nodes), Arrays.copyOf(terminal, nodes));
+        }
+
+        private int newNode() {
+            if (nodes == terminal.length) {
+                terminal = Arrays.copyOf(terminal, nodes * 2);
+                children = Arrays.copyOf(children, nodes * 4);
+            }
+            return nodes++;
+        }
+    }
+}
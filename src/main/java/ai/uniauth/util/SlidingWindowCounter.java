@@ -0,0 +1,129 @@
+package ai.uniauth.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free per-key event counts over a sliding time window. The window is split into
+ * buckets; each bucket is one atomic word packing the bucket's epoch with its count, so an
+ * increment is a single CAS and a stale bucket resets itself on the next write. Counts are
+ * exact to one bucket: events older than the window expire a bucket at a time. Keys whose
+ * buckets have all expired are dropped by {@link #expire}.
+ */
+public final class SlidingWindowCounter<K> {
+
+    private static final int COUNT_BITS = 20;
+    private static final long COUNT_MASK = (1L << COUNT_BITS) - 1;
+
+    private final long bucketMillis;
+    private final int bucketCount;
+    private final Map<K, Window> windows = new ConcurrentHashMap<>();
+
+    public SlidingWindowCounter(long windowMillis, int bucketCount) {
+        if (bucketCount < 1 || windowMillis < bucketCount) {
+            throw new IllegalArgumentException("Window must span at least one millisecond per bucket");
+        }
+        this.bucketCount = bucketCount;
+        this.bucketMillis = windowMillis / bucketCount;
+    }
+
+    /**
+     * @return the count in the window including this event
+     */
+    public long increment(K key, long nowMillis) {
+        Window window = windows.computeIfAbsent(key, k -> new Window());
+        window.add(epochOf(nowMillis), 1);
+        return window.sum(epochOf(nowMillis));
+    }
+
+    public long count(K key, long nowMillis) {
+        Window window = windows.get(key);
+        return window != null ? window.sum(epochOf(nowMillis)) : 0;
+    }
+
+    /**
+     * Starts tracking {@code key} with {@code count} events in the current bucket, unless
+     * the key is already tracked. Used to restore counts from durable storage.
+     *
+     * @return false if the key was already tracked and the seed was ignored
+     */
+    public boolean seed(K key, long count, long nowMillis) {
+        Window window = new Window();
+        if (count > 0) {
+            window.add(epochOf(nowMillis), count);
+        }
+        return windows.putIfAbsent(key, window) == null;
+    }
+
+    public boolean contains(K key) {
+        return windows.containsKey(key);
+    }
+
+    public void reset(K key) {
+        windows.remove(key);
+    }
+
+    /**
+     * @return number of keys dropped because their whole window has expired
+     */
+    public int expire(long nowMillis) {
+        long epoch = epochOf(nowMillis);
+        int removed = 0;
+        for (Map.Entry<K, Window> entry : windows.entrySet()) {
+            if (entry.getValue().isExpired(epoch) && windows.remove(entry.getKey(), entry.getValue())) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public int size() {
+        return windows.size();
+    }
+
+    public long getBucketMillis() {
+        return bucketMillis;
+    }
+
+    private long epochOf(long nowMillis) {
+        return nowMillis / bucketMillis;
+    }
+
+    private final class Window {
+        private final AtomicLongArray buckets = new AtomicLongArray(bucketCount);
+
+        void add(long epoch, long delta) {
+            int index = (int) (epoch % bucketCount);
+            while (true) {
+                long current = buckets.get(index);
+                long count = (current >>> COUNT_BITS) == epoch ? current & COUNT_MASK : 0;
+                long next = (epoch << COUNT_BITS) | Math.min(COUNT_MASK, count + delta);
+                if (current == next || buckets.compareAndSet(index, current, next)) {
+                    return;
+                }
+            }
+        }
+
+        long sum(long epoch) {
+            long sum = 0;
+            for (int i = 0; i < bucketCount; i++) {
+                long current = buckets.get(i);
+                if (epoch - (current >>> COUNT_BITS) < bucketCount) {
+                    sum += current & COUNT_MASK;
+                }
+            }
+            return sum;
+        }
+
+        boolean isExpired(long epoch) {
+            for (int i = 0; i < bucketCount; i++) {
+                long current = buckets.get(i);
+                if ((current & COUNT_MASK) != 0 && epoch - (current >>> COUNT_BITS) < bucketCount) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
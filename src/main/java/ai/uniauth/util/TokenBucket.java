@@ -0,0 +1,68 @@
+package ai.uniauth.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket holding up to {@code rate} tokens that refill evenly over the
+ * period. The whole state is one long, the time at which the bucket would be full again
+ * (the generic cell rate algorithm form of a token bucket), so a request is one CAS and
+ * refill is computed lazily from {@link System#nanoTime()}. The rate is passed on every
+ * call, and a changed rate takes effect immediately.
+ */
+public final class TokenBucket {
+
+    private final long periodNanos;
+    private final AtomicLong fullAt;
+    private volatile Rate rate = new Rate(0, 0);
+
+    public TokenBucket(long periodNanos, long nowNanos) {
+        if (periodNanos <= 0) {
+            throw new IllegalArgumentException("Period must be positive");
+        }
+        this.periodNanos = periodNanos;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @param rate tokens per period; zero or less means unlimited
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryAcquire(int rate, long nowNanos) {
+        if (rate <= 0) {
+            return 0;
+        }
+        long interval = intervalFor(rate);
+        while (true) {
+            long current = fullAt.get();
+            // Time already full does not accumulate: the bucket holds at most one period of tokens
+            long next = Math.max(current, nowNanos) + interval;
+            long excess = next - nowNanos - periodNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @return whether the bucket has refilled completely, so dropping it and later starting
+     *         a new one makes no difference
+     */
+    public boolean isFull(long nowNanos) {
+        return fullAt.get() <= nowNanos;
+    }
+
+    private long intervalFor(int tokensPerPeriod) {
+        Rate current = rate;
+        if (current.tokensPerPeriod() != tokensPerPeriod) {
+            current = new Rate(tokensPerPeriod, Math.max(1, periodNanos / tokensPerPeriod));
+            rate = current;
+        }
+        return current.intervalNanos();
+    }
+
+    private record Rate(int tokensPerPeriod, long intervalNanos) {
+    }
+}
@@ -0,0 +1,21 @@
+package ai.uniauth.util;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * UUIDs in the big-endian 16-byte layout Hibernate uses for the {@code BINARY(16)} id
+ * columns, for statements written directly against JDBC.
+ */
+public final class UuidBytes {
+
+    private UuidBytes() {
+    }
+
+    public static byte[] toBytes(UUID uuid) {
+        return ByteBuffer.allocate(16)
+                .putLong(uuid.getMostSignificantBits())
+                .putLong(uuid.getLeastSignificantBits())
+                .array();
+    }
+}
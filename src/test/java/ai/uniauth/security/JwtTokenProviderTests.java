@@ -0,0 +1,39 @@
+package ai.uniauth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtTokenProviderTests {
+
+	private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef";
+
+	@Test
+	void verifiesIssuedTokensAndServesRepeatsFromCache() {
+		JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100);
+		UUID userId = UUID.randomUUID();
+		JwtTokenProvider.IssuedToken issued = provider.issueAccessToken(userId, "alice", UUID.randomUUID());
+
+		JwtTokenProvider.VerifiedToken first = provider.verify(issued.token());
+		assertNotNull(first);
+		assertEquals(userId, first.userId());
+		assertEquals("alice", first.username());
+		assertEquals(issued.tokenId(), first.tokenId());
+
+		assertSame(first, provider.verify(issued.token()));
+		assertEquals(1L, provider.getStats().get("hits"));
+	}
+
+	@Test
+	void rejectsTokensSignedWithAnotherKey() {
+		JwtTokenProvider issuer = new JwtTokenProvider(SECRET.replace('0', 'x'), 60_000, 100);
+		JwtTokenProvider provider = new JwtTokenProvider(SECRET, 60_000, 100);
+		String token = issuer.issueAccessToken(UUID.randomUUID(), "mallory", null).token();
+
+		assertNull(provider.verify(token));
+		assertNull(provider.verify("not-a-token"));
+		assertEquals(2L, provider.getStats().get("rejected"));
+	}
+}
@@ -0,0 +1,51 @@
+package ai.uniauth.security;
+
+import ai.uniauth.util.Base32;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OneTimePasswordVerifierTests {
+
+	// RFC 4226 / RFC 6238 test secret
+	private static final String SECRET = Base32.encode("12345678901234567890".getBytes(StandardCharsets.US_ASCII));
+
+	@Test
+	void matchesTheRfcTestVectors() {
+		OneTimePasswordVerifier hotp = new OneTimePasswordVerifier(6, 30, 1, 10, 100);
+		UUID user = UUID.randomUUID();
+		assertEquals(1, hotp.verifyHotp(user, SECRET, "755224", 0));
+		assertEquals(10, hotp.verifyHotp(user, SECRET, "520489", 0));
+		assertEquals(-1, hotp.verifyHotp(user, SECRET, "755224", 1));
+
+		OneTimePasswordVerifier totp = new OneTimePasswordVerifier(8, 30, 1, 10, 100);
+		assertTrue(totp.verifyTotp(UUID.randomUUID(), SECRET, "94287082", 59_000L));
+		assertTrue(totp.verifyTotp(UUID.randomUUID(), SECRET, "07081804", 1_111_111_109_000L));
+		assertTrue(totp.verifyTotp(UUID.randomUUID(), SECRET, "65353130", 20_000_000_000_000L));
+	}
+
+	@Test
+	void acceptsEachStepOnceAndRejectsOlderSteps() {
+		OneTimePasswordVerifier totp = new OneTimePasswordVerifier(8, 30, 1, 10, 100);
+		UUID user = UUID.randomUUID();
+		assertTrue(totp.verifyTotp(user, SECRET, "07081804", 1_111_111_109_000L));
+		assertFalse(totp.verifyTotp(user, SECRET, "07081804", 1_111_111_109_000L));
+		// Same code from the step before, still inside the window but older than the one used
+		assertFalse(totp.verifyTotp(user, SECRET, "07081804", 1_111_111_139_000L));
+		assertTrue(totp.verifyTotp(UUID.randomUUID(), SECRET, "07081804", 1_111_111_139_000L));
+		assertFalse(totp.verifyTotp(user, SECRET, "0708180x", 1_111_111_109_000L));
+		assertEquals(2L, totp.getStats().get("replays"));
+	}
+
+	@Test
+	void rejectsCodesForAMalformedSecret() {
+		OneTimePasswordVerifier verifier = new OneTimePasswordVerifier(6, 30, 1, 10, 100);
+		UUID user = UUID.randomUUID();
+		assertFalse(verifier.verifyTotp(user, "not base32!", "123456"));
+		assertEquals(-1, verifier.verifyHotp(user, "not base32!", "755224", 0));
+		assertEquals(2L, verifier.getStats().get("rejected"));
+	}
+}
@@ -0,0 +1,36 @@
+package ai.uniauth.security;
+
+import ai.uniauth.service.dto.response.SessionTokens;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecentRefreshIndexTests {
+
+	@Test
+	void retriesWithinGraceShareOneRotationAndFailuresAreNotRemembered() {
+		RecentRefreshIndex index = new RecentRefreshIndex(30);
+		byte[] hash = RefreshTokens.hash("token-a");
+		AtomicInteger rotations = new AtomicInteger();
+
+		SessionTokens first = index.rotateOnce(hash, () -> {
+			rotations.incrementAndGet();
+			return SessionTokens.builder().refreshToken(RefreshTokens.generate()).build();
+		});
+		SessionTokens retried = index.rotateOnce(RefreshTokens.hash("token-a"), () -> {
+			rotations.incrementAndGet();
+			return SessionTokens.builder().build();
+		});
+		assertSame(first, retried);
+		assertEquals(1, rotations.get());
+
+		byte[] bad = RefreshTokens.hash("token-b");
+		assertThrows(BadCredentialsException.class, () -> index.rotateOnce(bad, () -> {
+			throw new BadCredentialsException("Invalid refresh token");
+		}));
+		assertNotNull(index.rotateOnce(bad, () -> SessionTokens.builder().build()));
+	}
+}
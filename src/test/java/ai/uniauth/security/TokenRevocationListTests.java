@@ -0,0 +1,33 @@
+package ai.uniauth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationListTests {
+
+	@Test
+	void revokesSingleTokensAndEverythingIssuedToAUser() {
+		TokenRevocationList revocations = new TokenRevocationList(null, 60_000, 0.01, 5);
+		long now = System.currentTimeMillis();
+		UUID alice = UUID.randomUUID();
+		JwtTokenProvider.VerifiedToken first = token(alice, now - 5_000, now + 60_000);
+		JwtTokenProvider.VerifiedToken second = token(alice, now - 5_000, now + 60_000);
+
+		revocations.revoke(first.tokenId(), first.expiresAtMillis());
+		assertTrue(revocations.isRevoked(first));
+		assertFalse(revocations.isRevoked(second));
+
+		revocations.revokeUser(alice);
+		assertTrue(revocations.isRevoked(second));
+		assertFalse(revocations.isRevoked(token(alice, now + 2_000, now + 60_000)));
+		assertFalse(revocations.isRevoked(token(UUID.randomUUID(), now - 5_000, now + 60_000)));
+	}
+
+	private static JwtTokenProvider.VerifiedToken token(UUID userId, long issuedAt, long expiresAt) {
+		return new JwtTokenProvider.VerifiedToken(userId, "alice", UUID.randomUUID().toString(), UUID.randomUUID(),
+				issuedAt, expiresAt);
+	}
+}
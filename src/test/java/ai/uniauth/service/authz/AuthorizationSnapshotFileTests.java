@@ -0,0 +1,46 @@
+package ai.uniauth.service.authz;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AuthorizationSnapshotFileTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void writesAndServesMappedSnapshot() throws Exception {
+		UUID admin = UUID.randomUUID();
+		UUID viewer = UUID.randomUUID();
+		UUID alice = UUID.randomUUID();
+		UUID bob = new UUID(-1L, 7L); // sorts last as unsigned
+		AuthorizationGraph graph = new AuthorizationGraph(
+				Map.of(alice, Set.of(admin, viewer), bob, Set.of(viewer)),
+				Map.of(admin, Set.of("user.write"), viewer, Set.of("user.read")));
+
+		String file = dir.resolve("authz.bin").toString();
+		new AuthorizationSnapshotFile(new PermissionCodeRegistry(null), file, true).write(graph);
+
+		AuthorizationSnapshotFile mapped = new AuthorizationSnapshotFile(new PermissionCodeRegistry(null), file, true);
+		mapped.open();
+		assertTrue(mapped.isMapped());
+		assertEquals(Set.of("user.write", "user.read"), mapped.lookup(alice).getPermissionCodes());
+		assertEquals(Set.of(viewer), mapped.lookup(bob).getRoleIds());
+		assertNull(mapped.lookup(UUID.randomUUID()));
+		assertTrue(mapped.readMappedGraph().changedUsers(graph).isEmpty());
+
+		mapped.markRoleChanged(admin);
+		assertNull(mapped.lookup(alice));
+		assertNotNull(mapped.lookup(bob));
+
+		mapped.release();
+		assertNull(mapped.lookup(bob));
+	}
+}
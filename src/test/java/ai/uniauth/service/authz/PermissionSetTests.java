@@ -0,0 +1,47 @@
+package ai.uniauth.service.authz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PermissionSetTests {
+
+	@Test
+	void containsOnlyAddedOrdinals() {
+		PermissionSet set = PermissionSet.of(0, 63, 64, 200);
+
+		assertTrue(set.contains(0));
+		assertTrue(set.contains(63));
+		assertTrue(set.contains(64));
+		assertTrue(set.contains(200));
+		assertFalse(set.contains(1));
+		assertFalse(set.contains(1000));
+		assertFalse(set.contains(PermissionCodeRegistry.UNKNOWN));
+		assertEquals(4, set.cardinality());
+	}
+
+	@Test
+	void containsAllAndIntersectsAcrossWordBoundaries() {
+		PermissionSet granted = PermissionSet.of(1, 70, 130);
+
+		assertTrue(granted.containsAll(PermissionSet.of(1, 130)));
+		assertFalse(granted.containsAll(PermissionSet.of(1, 300)));
+		assertTrue(granted.containsAll(PermissionSet.EMPTY));
+		assertTrue(granted.intersects(PermissionSet.of(70, 500)));
+		assertFalse(granted.intersects(PermissionSet.of(2, 500)));
+		assertFalse(PermissionSet.EMPTY.intersects(granted));
+	}
+
+	@Test
+	void unionMergesBothSets() {
+		PermissionSet merged = PermissionSet.of(3).union(PermissionSet.of(128));
+
+		assertEquals(PermissionSet.of(3, 128), merged);
+		List<Integer> ordinals = new ArrayList<>();
+		merged.forEach(ordinals::add);
+		assertEquals(List.of(3, 128), ordinals);
+	}
+}
@@ -0,0 +1,48 @@
+package ai.uniauth.service.authz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimerWheelTests {
+
+	@Test
+	void firesEachEntryOnItsTickAcrossLevels() {
+		TimerWheel<String> wheel = new TimerWheel<>(1000, 5_000);
+		wheel.schedule("soon", 10_000);
+		wheel.schedule("level1", 130_000);
+		wheel.schedule("level2", 5_000 + 4_100_000);
+
+		assertEquals(List.of(), wheel.advance(9_999));
+		assertEquals(List.of("soon"), wheel.advance(10_000));
+		assertEquals(List.of(), wheel.advance(129_999));
+		assertEquals(List.of("level1"), wheel.advance(130_500));
+		assertEquals(List.of(), wheel.advance(4_104_999));
+		assertEquals(List.of("level2"), wheel.advance(4_105_000));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	void rescheduleAndCancelReplacePreviousDeadline() {
+		TimerWheel<String> wheel = new TimerWheel<>(1000, 0);
+		wheel.schedule("a", 2_000);
+		wheel.schedule("a", 70_000);
+		wheel.schedule("b", 3_000);
+		wheel.cancel("b");
+
+		assertEquals(List.of(), wheel.advance(69_000));
+		assertEquals(List.of("a"), wheel.advance(70_000));
+	}
+
+	@Test
+	void overdueFiresImmediatelyAndBeyondHorizonIsRejected() {
+		TimerWheel<String> wheel = new TimerWheel<>(1000, 50_000);
+		assertTrue(wheel.schedule("late", 1_000));
+		assertFalse(wheel.schedule("far", wheel.horizonMillis() + 1_000));
+
+		assertEquals(List.of("late"), wheel.advance(50_000));
+		assertFalse(wheel.contains("far"));
+	}
+}
@@ -0,0 +1,26 @@
+package ai.uniauth.service.authz;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserPermissionSnapshotTests {
+
+	@Test
+	void checksCodeListsWithDuplicatesAndUnknownCodes() {
+		PermissionCodeRegistry registry = new PermissionCodeRegistry(null);
+		PermissionSet granted = PermissionSet.of(registry.intern("user.read"), registry.intern("user.write"));
+		registry.intern("user.delete");
+		UserPermissionSnapshot snapshot = new UserPermissionSnapshot(UUID.randomUUID(), Set.of(), granted, registry);
+
+		assertTrue(snapshot.hasAllPermissions(List.of("user.read", "user.read", "user.write")));
+		assertFalse(snapshot.hasAllPermissions(List.of("user.read", "user.delete")));
+		assertFalse(snapshot.hasAllPermissions(List.of("user.read", "not.interned")));
+		assertTrue(snapshot.hasAnyPermission(List.of("not.interned", "user.write", "user.write")));
+		assertFalse(snapshot.hasAnyPermission(List.of("user.delete", "not.interned")));
+	}
+}
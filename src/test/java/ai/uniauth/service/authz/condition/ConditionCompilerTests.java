@@ -0,0 +1,67 @@
+package ai.uniauth.service.authz.condition;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConditionCompilerTests {
+
+	private final ConditionCompiler compiler = new ConditionCompiler(new ObjectMapper());
+
+	@Test
+	void blankRuleAlwaysMatches() {
+		assertSame(AttributeCondition.ALWAYS, compiler.compile(null));
+		assertSame(AttributeCondition.ALWAYS, compiler.compile("  "));
+	}
+
+	@Test
+	void evaluatesFieldOperatorsAndLogic() {
+		AttributeCondition condition = compiler.compile("""
+				{"department": "sales",
+				 "amount": {"$lte": 1000},
+				 "$or": [{"region": {"$in": ["EU", "US"]}}, {"tags": {"$contains": "global"}}]}
+				""");
+
+		assertTrue(condition.test(Map.of("department", "sales", "amount", 250L, "region", "EU")));
+		assertTrue(condition.test(Map.of("department", "sales", "amount", 1000.0, "region", "APAC",
+				"tags", List.of("global"))));
+		assertFalse(condition.test(Map.of("department", "sales", "amount", 1001, "region", "EU")));
+		assertFalse(condition.test(Map.of("department", "hr", "amount", 1, "region", "EU")));
+		assertFalse(condition.test(Map.of("department", "sales", "region", "EU")));
+	}
+
+	@Test
+	void comparesNestedPathsAndReferences() {
+		UUID userId = UUID.randomUUID();
+		AttributeCondition condition = compiler.compile(
+				"{\"resource.ownerId\": {\"$eq\": {\"$ref\": \"user.id\"}}, \"$not\": {\"resource.locked\": true}}");
+
+		assertTrue(condition.test(Map.of("user", Map.of("id", userId),
+				"resource", Map.of("ownerId", userId.toString(), "locked", false))));
+		assertFalse(condition.test(Map.of("user", Map.of("id", UUID.randomUUID()),
+				"resource", Map.of("ownerId", userId.toString()))));
+	}
+
+	@Test
+	void rejectsMalformedRules() {
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("{\"a\": {\"$between\": 1}}"));
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("[1, 2]"));
+		assertThrows(IllegalArgumentException.class, () -> compiler.compile("{not json"));
+	}
+
+	@Test
+	void boundsRegexPatternsAndInputs() {
+		AttributeCondition condition = compiler.compile("{\"code\": {\"$regex\": \"(.*a){12}\"}}");
+
+		assertTrue(condition.test(Map.of("code", "a".repeat(12))));
+		assertThrows(IllegalStateException.class, () -> condition.test(Map.of("code", "a".repeat(40) + "!")));
+		assertThrows(IllegalStateException.class, () -> condition.test(Map.of("code", "a".repeat(2_000))));
+		assertThrows(IllegalArgumentException.class,
+				() -> compiler.compile("{\"code\": {\"$regex\": \"" + "a".repeat(300) + "\"}}"));
+	}
+}
@@ -0,0 +1,55 @@
+package ai.uniauth.service.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ShardedSessionStoreTests {
+
+	@Test
+	void syncDropsSessionsClosedElsewhereButKeepsRecentOnes() {
+		ShardedSessionStore store = new ShardedSessionStore();
+		LocalDateTime now = LocalDateTime.now();
+		UUID alice = UUID.randomUUID();
+		ActiveSession persisted = session(alice, now.minusHours(1), now.plusDays(1));
+		ActiveSession closedElsewhere = session(alice, now.minusHours(1), now.plusDays(1));
+		ActiveSession justOpened = session(alice, now, now.plusDays(1));
+		store.put(persisted);
+		store.put(closedElsewhere);
+		store.put(justOpened);
+		assertFalse(store.isReady());
+
+		assertEquals(1, store.sync(List.of(persisted), now.minusMinutes(1)));
+		assertTrue(store.isReady());
+		assertEquals(2, store.countByUserId(alice));
+		assertTrue(store.get(closedElsewhere.sessionId()).isEmpty());
+		assertTrue(store.get(justOpened.sessionId()).isPresent());
+	}
+
+	@Test
+	void removesSessionsByUserAndOnExpiry() {
+		ShardedSessionStore store = new ShardedSessionStore();
+		LocalDateTime now = LocalDateTime.now();
+		UUID alice = UUID.randomUUID();
+		UUID bob = UUID.randomUUID();
+		store.put(session(alice, now, now.plusDays(1)));
+		store.put(session(alice, now, now.plusDays(1)));
+		ActiveSession expiring = session(bob, now, now.plusMinutes(1));
+		store.put(expiring);
+
+		assertEquals(2, store.removeByUserId(alice).size());
+		assertEquals(0, store.countByUserId(alice));
+		assertEquals(1, store.removeExpired(now.plusMinutes(2)));
+		assertTrue(store.get(expiring.sessionId()).isEmpty());
+		assertEquals(0, store.size());
+	}
+
+	private static ActiveSession session(UUID userId, LocalDateTime loginAt, LocalDateTime refreshExpires) {
+		return new ActiveSession(UUID.randomUUID(), userId, "127.0.0.1", "test", loginAt,
+				loginAt.plusMinutes(15), refreshExpires);
+	}
+}
@@ -0,0 +1,57 @@
+package ai.uniauth.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CidrTrieTests {
+
+	@Test
+	void matchesAddressesInsideIpv4AndIpv6Ranges() {
+		CidrTrie trie = CidrTrie.compile(List.of("10.0.0.0/8", "192.168.1.7", "2001:db8::/32", "::1"));
+
+		assertTrue(trie.contains("10.255.0.1"));
+		assertTrue(trie.contains("192.168.1.7"));
+		assertFalse(trie.contains("192.168.1.8"));
+		assertFalse(trie.contains("11.0.0.1"));
+		assertTrue(trie.contains("2001:db8:ffff::42"));
+		assertTrue(trie.contains("2001:0DB8:0:0:0:0:0:1"));
+		assertFalse(trie.contains("2001:db9::1"));
+		assertTrue(trie.contains("::1"));
+		assertTrue(trie.contains("0:0:0:0:0:0:0:1"));
+		assertTrue(trie.contains("::ffff:10.1.2.3"));
+		assertFalse(trie.contains("fe80::1%eth0"));
+	}
+
+	@Test
+	void rejectsMalformedAddressesAndRules() {
+		CidrTrie trie = CidrTrie.compile(List.of("0.0.0.0/0", "::/0"));
+
+		assertTrue(trie.contains("8.8.8.8"));
+		assertTrue(trie.contains("fe80::1%eth0"));
+		assertFalse(trie.contains("256.0.0.1"));
+		assertFalse(trie.contains("1.2.3"));
+		assertFalse(trie.contains("1::2::3"));
+		assertFalse(trie.contains("12345::"));
+		assertFalse(trie.contains("example.com"));
+		assertFalse(CidrTrie.EMPTY.contains("8.8.8.8"));
+
+		assertThrows(IllegalArgumentException.class, () -> CidrTrie.compile(List.of("10.0.0.0/33")));
+		assertThrows(IllegalArgumentException.class, () -> CidrTrie.compile(List.of("2001:db8::/129")));
+		assertThrows(IllegalArgumentException.class, () -> CidrTrie.compile(List.of("10.0.0.0/")));
+		assertThrows(IllegalArgumentException.class, () -> CidrTrie.compile(List.of("localhost")));
+	}
+
+	@Test
+	void normalizesRulesToCanonicalCidrForm() {
+		assertEquals("10.0.0.1/32", CidrTrie.normalize(" 10.0.0.1 "));
+		assertEquals("10.0.0.0/8", CidrTrie.normalize("10.1.2.3/8"));
+		assertEquals("10.0.0.0/24", CidrTrie.normalize("::ffff:10.0.0.9/120"));
+		assertEquals("2001:db8::/64", CidrTrie.normalize("2001:0DB8:0:0::1/64"));
+		assertEquals("2001:db8::1:0:0:1/128", CidrTrie.normalize("2001:db8:0:0:1:0:0:1"));
+		assertEquals("::1/128", CidrTrie.normalize("0:0:0:0:0:0:0:1"));
+		assertEquals("::/0", CidrTrie.normalize("fe80::1/0"));
+	}
+}
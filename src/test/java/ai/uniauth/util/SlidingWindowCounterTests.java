@@ -0,0 +1,39 @@
+package ai.uniauth.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SlidingWindowCounterTests {
+
+	@Test
+	void countsExpireBucketByBucket() {
+		SlidingWindowCounter<String> counter = new SlidingWindowCounter<>(10_000, 10);
+		long start = 1_700_000_000_000L;
+
+		assertEquals(1, counter.increment("10.0.0.1", start));
+		assertEquals(2, counter.increment("10.0.0.1", start + 500));
+		assertEquals(3, counter.increment("10.0.0.1", start + 5_000));
+		assertEquals(3, counter.count("10.0.0.1", start + 9_999));
+
+		// The first bucket leaves the window, the later event stays
+		assertEquals(1, counter.count("10.0.0.1", start + 10_000));
+		assertEquals(0, counter.expire(start + 10_000));
+		assertEquals(0, counter.count("10.0.0.1", start + 15_000));
+		assertEquals(1, counter.expire(start + 15_000));
+		assertFalse(counter.contains("10.0.0.1"));
+	}
+
+	@Test
+	void seedOnlyAppliesToUntrackedKeys() {
+		SlidingWindowCounter<String> counter = new SlidingWindowCounter<>(60_000, 30);
+		long now = 1_700_000_000_000L;
+
+		assertTrue(counter.seed("alice", 4, now));
+		assertFalse(counter.seed("alice", 9, now));
+		assertEquals(5, counter.increment("alice", now));
+
+		counter.reset("alice");
+		assertEquals(0, counter.count("alice", now));
+	}
+}
@@ -0,0 +1,37 @@
+package ai.uniauth.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenBucketTests {
+
+	private static final long SECOND = 1_000_000_000L;
+
+	@Test
+	void allowsABurstOfOnePeriodAndThenRefillsEvenly() {
+		TokenBucket bucket = new TokenBucket(10 * SECOND, 0);
+		for (int i = 0; i < 10; i++) {
+			assertEquals(0, bucket.tryAcquire(10, 0));
+		}
+		assertEquals(SECOND, bucket.tryAcquire(10, 0));
+
+		assertEquals(0, bucket.tryAcquire(10, SECOND));
+		assertTrue(bucket.tryAcquire(10, SECOND) > 0);
+
+		assertFalse(bucket.isFull(10 * SECOND));
+		assertTrue(bucket.isFull(11 * SECOND));
+	}
+
+	@Test
+	void appliesAChangedRateAndTreatsZeroAsUnlimited() {
+		TokenBucket bucket = new TokenBucket(10 * SECOND, 0);
+		assertEquals(0, bucket.tryAcquire(2, 0));
+		assertEquals(0, bucket.tryAcquire(2, 0));
+		assertTrue(bucket.tryAcquire(2, 0) > 0);
+
+		assertEquals(0, bucket.tryAcquire(0, 0));
+		assertTrue(bucket.tryAcquire(2, SECOND) > 0);
+		assertEquals(0, bucket.tryAcquire(20, SECOND));
+	}
+}